@@ -0,0 +1,81 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.pool.connectors.GenericConnectionPool;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * In-memory H2 database with narrow_row (4 columns) and wide_row (40 columns) tables
+ */
+public final class BenchDatabase {
+
+	public final static String NARROW_SQL = "select id, name, age, score from narrow_row";
+	public final static String WIDE_SQL = "select * from wide_row";
+
+	// will not be instantiated
+	private BenchDatabase() {
+	}
+
+	// pooled DataSource on a fresh database holding the given number of rows per table
+	public static DataSource create(String name, int rows) throws SQLException {
+		DataSource dataSource = GenericConnectionPool.embeddedH2(name).getDataSource();
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("drop table if exists narrow_row");
+			statement.execute("drop table if exists wide_row");
+			statement.execute("create table narrow_row (id bigint, name varchar(64), age int, score double)");
+
+			StringBuilder wide = new StringBuilder("create table wide_row (");
+			StringBuilder insert = new StringBuilder("insert into wide_row values (");
+			for (int i = 0; i < 10; i++) {
+				wide.append(i == 0 ? "" : ", ").append(String.format("l%d bigint, s%d varchar(64), i%d int, d%d double", i, i, i, i));
+				insert.append(i == 0 ? "" : ", ").append("?, ?, ?, ?");
+			}
+			statement.execute(wide.append(")").toString());
+
+			try (PreparedStatement narrowInsert = connection.prepareStatement("insert into narrow_row values (?, ?, ?, ?)");
+				 PreparedStatement wideInsert = connection.prepareStatement(insert.append(")").toString())) {
+				for (int row = 0; row < rows; row++) {
+					narrowInsert.setLong(1, row);
+					narrowInsert.setString(2, "name-" + row);
+					narrowInsert.setObject(3, (row % 10 == 0) ? null : row % 90);
+					narrowInsert.setDouble(4, row * 1.5);
+					narrowInsert.addBatch();
+
+					for (int i = 0; i < 10; i++) {
+						wideInsert.setLong(i * 4 + 1, row + i);
+						wideInsert.setString(i * 4 + 2, "value-" + row + "-" + i);
+						wideInsert.setObject(i * 4 + 3, (row % 10 == i) ? null : row);
+						wideInsert.setDouble(i * 4 + 4, row * 0.5 + i);
+					}
+					wideInsert.addBatch();
+				}
+				narrowInsert.executeBatch();
+				wideInsert.executeBatch();
+			}
+			if (!connection.getAutoCommit()) {
+				connection.commit();
+			}
+		}
+		return dataSource;
+	}
+}
@@ -0,0 +1,47 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks writing JSON results, to be compared across releases.
+ * <pre>
+ * java -jar target/benchmarks.jar [include regexp] [result file]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+	// will not be instantiated
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String include = (args.length > 0) ? args[0] : "eu\\.ts\\.jdbc\\.bench\\..*Benchmark.*";
+		String result = (args.length > 1) ? args[1] : "target/jmh-result.json";
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result)
+				.build();
+		new Runner(options).run();
+	}
+}
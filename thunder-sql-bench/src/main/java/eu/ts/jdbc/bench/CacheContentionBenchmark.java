@@ -0,0 +1,106 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.dsl.mapping.ConcurrentCache;
+import eu.ts.jdbc.dsl.mapping.LRUCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared cache under contention: 3 readers and 1 writer on a key space 4 times the capacity.
+ * LRUCache is not thread safe (reads reorder the access list) and is measured behind a lock,
+ * the way it has to be shared.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheContentionBenchmark {
+
+	private final static int CAPACITY = 1024;
+	private final static int KEYS = CAPACITY * 4;
+
+	private final Integer[] keys = new Integer[KEYS];
+	private LRUCache<Integer, Integer> lru;
+	private ConcurrentCache<Integer, Integer> concurrent;
+
+	@Setup
+	public void setup() {
+		lru = new LRUCache<>(CAPACITY);
+		concurrent = new ConcurrentCache<>(CAPACITY);
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = i;
+		}
+		for (int i = 0; i < CAPACITY; i++) {
+			lru.cache(keys[i], keys[i]);
+			concurrent.cache(keys[i], keys[i]);
+		}
+	}
+
+	private Integer key() {
+		return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+	}
+
+	@Benchmark
+	@Group("lru")
+	@GroupThreads(3)
+	public Integer lruGet() {
+		synchronized (lru) {
+			return lru.get(key());
+		}
+	}
+
+	@Benchmark
+	@Group("lru")
+	@GroupThreads(1)
+	public void lruPut() {
+		Integer key = key();
+		synchronized (lru) {
+			lru.cache(key, key);
+		}
+	}
+
+	@Benchmark
+	@Group("concurrent")
+	@GroupThreads(3)
+	public Integer concurrentGet() {
+		return concurrent.get(key());
+	}
+
+	@Benchmark
+	@Group("concurrent")
+	@GroupThreads(1)
+	public void concurrentPut() {
+		Integer key = key();
+		concurrent.cache(key, key);
+	}
+}
@@ -0,0 +1,71 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.bench.model.NarrowRow;
+import eu.ts.jdbc.bench.model.WideRow;
+import eu.ts.jdbc.dsl.mapping.ClassExplorer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class field discovery: the uncached exploration (same loop as ClassExplorer) against the cached build
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassExplorerBenchmark {
+
+	@Benchmark
+	public Map<String, Field> exploreNarrow() {
+		return explore(NarrowRow.class);
+	}
+
+	@Benchmark
+	public Map<String, Field> exploreWide() {
+		return explore(WideRow.class);
+	}
+
+	@Benchmark
+	public Map<String, Field> cachedWide() {
+		return ClassExplorer.build(WideRow.class).getFields();
+	}
+
+	// ClassExplorer cache miss
+	private static Map<String, Field> explore(Class<?> clazz) {
+		Map<String, Field> classFields = new HashMap<>();
+		for (Field field : clazz.getDeclaredFields()) {
+			field.setAccessible(true);
+			classFields.put(field.getName().toLowerCase(), field);
+		}
+		return classFields;
+	}
+}
@@ -0,0 +1,72 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.bench.model.NarrowRow;
+import eu.ts.jdbc.bench.model.WideRow;
+import eu.ts.jdbc.dsl.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole Query.fetch: pool borrow, cached statement, execution and mapping of every row
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FetchBenchmark {
+
+	@Param({"1000"})
+	private int rows;
+
+	private DataSource dataSource;
+
+	@Setup
+	public void setup() throws Exception {
+		dataSource = BenchDatabase.create("fetch", rows);
+	}
+
+	@Benchmark
+	public List<NarrowRow> fetchNarrow() {
+		return Query.select(dataSource, BenchDatabase.NARROW_SQL).fetch(NarrowRow.class);
+	}
+
+	@Benchmark
+	public List<WideRow> fetchWide() {
+		return Query.select(dataSource, BenchDatabase.WIDE_SQL).fetch(WideRow.class);
+	}
+
+	@Benchmark
+	public List<Long> fetchHandler() {
+		return Query.select(dataSource, BenchDatabase.NARROW_SQL).fetch(rs -> rs.getLong(1));
+	}
+}
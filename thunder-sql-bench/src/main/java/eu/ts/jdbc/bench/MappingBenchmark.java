@@ -0,0 +1,90 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.bench.model.NarrowRow;
+import eu.ts.jdbc.bench.model.WideRow;
+import eu.ts.jdbc.dsl.mapping.RowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per row mapping cost (RowMapper and its ClassAttributeAppliers) on a positioned cursor
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+	private Connection connection;
+	private ResultSet narrow;
+	private ResultSet wide;
+	private RowMapper<NarrowRow> narrowMapper;
+	private RowMapper<WideRow> wideMapper;
+
+	@Setup
+	public void setup() throws Exception {
+		DataSource dataSource = BenchDatabase.create("mapping", 16);
+		connection = dataSource.getConnection();
+
+		narrow = open(BenchDatabase.NARROW_SQL);
+		narrowMapper = RowMapper.build(narrow.getMetaData(), NarrowRow.class, Collections.emptyMap());
+		wide = open(BenchDatabase.WIDE_SQL);
+		wideMapper = RowMapper.build(wide.getMetaData(), WideRow.class, Collections.emptyMap());
+	}
+
+	// second row: the first one holds NULLs
+	private ResultSet open(String sql) throws Exception {
+		Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		ResultSet rs = statement.executeQuery(sql);
+		rs.absolute(2);
+		return rs;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		connection.close();
+	}
+
+	@Benchmark
+	public NarrowRow mapNarrowRow() throws Exception {
+		return narrowMapper.handle(narrow);
+	}
+
+	@Benchmark
+	public WideRow mapWideRow() throws Exception {
+		return wideMapper.handle(wide);
+	}
+}
@@ -0,0 +1,77 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.dsl.mapping.QueryCache;
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statement registry lookups of already registered statements (the per query path),
+ * sized below the registry capacity: every lookup is a hit
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryCacheBenchmark {
+
+	private final static int STATEMENTS = 256;
+
+	private final String[] sqls = new String[STATEMENTS];
+	private final String[] names = new String[STATEMENTS];
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < STATEMENTS; i++) {
+			sqls[i] = "select * from table_" + i + " where id = :id and owner = :owner";
+			names[i] = "statement-" + i;
+			QueryCache.registerSqlStatement(sqls[i]);
+			QueryCache.registerNamedStatement(names[i], sqls[i]);
+		}
+	}
+
+	@Benchmark
+	public QueryParser sqlLookup() {
+		return QueryCache.registerSqlStatement(sqls[ThreadLocalRandom.current().nextInt(STATEMENTS)]);
+	}
+
+	@Benchmark
+	public QueryParser namedLookup() {
+		return QueryCache.registerNamedStatement(names[ThreadLocalRandom.current().nextInt(STATEMENTS)], null);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public QueryParser sqlLookupContended() {
+		return QueryCache.registerSqlStatement(sqls[ThreadLocalRandom.current().nextInt(STATEMENTS)]);
+	}
+}
@@ -0,0 +1,59 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named parameter parsing (single pass lexer)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryParserBenchmark {
+
+	private final String shortSql = "select * from users where id = :id";
+
+	private final String longSql = "select u.id, u.name, to_char(u.created, 'HH24:MI:SS') created, g.name group_name "
+			+ "from users u join groups g on g.id = u.group_id -- :skipped\n"
+			+ "where u.owner = :owner and (u.group_id = :group or g.parent = :group) "
+			+ "and u.name like 'it''s :literal%' /* :comment */ and u.created > :since "
+			+ "order by u.created desc";
+
+	@Benchmark
+	public QueryParser parseShort() {
+		return new QueryParser(shortSql);
+	}
+
+	@Benchmark
+	public QueryParser parseLong() {
+		return new QueryParser(longSql);
+	}
+}
@@ -0,0 +1,75 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench;
+
+import eu.ts.jdbc.bench.model.NarrowRow;
+import eu.ts.jdbc.dsl.Query;
+import eu.ts.jdbc.synthetic.SyntheticDataSource;
+import eu.ts.jdbc.synthetic.SyntheticTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query.fetch against the synthetic DataSource: no driver cost, only mapping plus the injected round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyntheticFetchBenchmark {
+
+	@Param({"10000"})
+	private int rows;
+
+	@Param({"10", "100", "1000"})
+	private int fetchSize;
+
+	@Param({"0", "100"})
+	private int roundTripMicros;
+
+	private SyntheticDataSource dataSource;
+
+	@Setup
+	public void setup() {
+		dataSource = new SyntheticDataSource(SyntheticTable.rows(rows)
+				.column("id", Types.BIGINT)
+				.column("name", Types.VARCHAR, 16, 0)
+				.column("age", Types.INTEGER, 0, 0.1)
+				.column("score", Types.DOUBLE)
+				.roundTripLatency(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros))));
+	}
+
+	@Benchmark
+	public List<NarrowRow> fetchNarrow() {
+		return Query.select(dataSource, BenchDatabase.NARROW_SQL).fetchSize(fetchSize).fetch(NarrowRow.class);
+	}
+}
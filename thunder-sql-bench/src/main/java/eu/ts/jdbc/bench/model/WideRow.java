@@ -0,0 +1,63 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.bench.model;
+
+import lombok.Data;
+
+// 40 columns: 10 each of long, String, Integer, double
+@Data
+public class WideRow {
+	private long l0;
+	private String s0;
+	private Integer i0;
+	private double d0;
+	private long l1;
+	private String s1;
+	private Integer i1;
+	private double d1;
+	private long l2;
+	private String s2;
+	private Integer i2;
+	private double d2;
+	private long l3;
+	private String s3;
+	private Integer i3;
+	private double d3;
+	private long l4;
+	private String s4;
+	private Integer i4;
+	private double d4;
+	private long l5;
+	private String s5;
+	private Integer i5;
+	private double d5;
+	private long l6;
+	private String s6;
+	private Integer i6;
+	private double d6;
+	private long l7;
+	private String s7;
+	private Integer i7;
+	private double d7;
+	private long l8;
+	private String s8;
+	private Integer i8;
+	private double d8;
+	private long l9;
+	private String s9;
+	private Integer i9;
+	private double d9;
+}
@@ -0,0 +1,304 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <Class>_RowMapper} (eu.ts.jdbc.dsl.mapping.GeneratedRowMapper) for each
+ * {@code @GenerateRowMapper} bean class: attributes resolved by a switch on the lower case column label,
+ * values assigned through setters (or package visible fields) with the same JDBC getters used by ApplierFactory.
+ */
+@SupportedAnnotationTypes(RowMapperProcessor.ANNOTATION)
+public class RowMapperProcessor extends AbstractProcessor {
+
+	final static String ANNOTATION = "eu.ts.jdbc.dsl.mapping.GenerateRowMapper";
+	private final static String SUFFIX = "_RowMapper";
+
+	// typed JDBC getters, as read by ApplierFactory
+	private final static Map<String, String> GETTERS = new HashMap<>();
+	private final static Map<String, String> WRAPPED = new HashMap<>();
+
+	static {
+		GETTERS.put("int", "getInt");
+		GETTERS.put("long", "getLong");
+		GETTERS.put("double", "getDouble");
+		GETTERS.put("float", "getFloat");
+		GETTERS.put("short", "getShort");
+		GETTERS.put("byte", "getByte");
+		GETTERS.put("boolean", "getBoolean");
+		GETTERS.put("java.lang.String", "getString");
+		GETTERS.put("java.math.BigDecimal", "getBigDecimal");
+		GETTERS.put("java.sql.Timestamp", "getTimestamp");
+		GETTERS.put("java.sql.Date", "getDate");
+		GETTERS.put("java.sql.Time", "getTime");
+		GETTERS.put("byte[]", "getBytes");
+
+		WRAPPED.put("java.lang.Integer", "int");
+		WRAPPED.put("java.lang.Long", "long");
+		WRAPPED.put("java.lang.Double", "double");
+		WRAPPED.put("java.lang.Float", "float");
+		WRAPPED.put("java.lang.Short", "short");
+		WRAPPED.put("java.lang.Byte", "byte");
+		WRAPPED.put("java.lang.Boolean", "boolean");
+	}
+
+	private static class Attribute {
+		private final String name;
+		private final String type;
+		private final String assignment;
+
+		private Attribute(String name, String type, String assignment) {
+			this.name = name;
+			this.type = type;
+			this.assignment = assignment;
+		}
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CLASS) {
+					error(element, "@GenerateRowMapper applies to classes only");
+					continue;
+				}
+				TypeElement type = (TypeElement) element;
+				if (checkClass(type)) {
+					generate(type, attributes(type));
+				}
+			}
+		}
+		return true;
+	}
+
+	// instantiable from the generated class: same package, non private, static if nested, no-arg constructor
+	private boolean checkClass(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return error(type, "@GenerateRowMapper class must not be abstract");
+		}
+		if (!type.getTypeParameters().isEmpty()) {
+			return error(type, "@GenerateRowMapper class must not be generic");
+		}
+		for (Element e = type; e.getKind() == ElementKind.CLASS; e = e.getEnclosingElement()) {
+			TypeElement enclosing = (TypeElement) e;
+			if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+				return error(type, "@GenerateRowMapper class must not be private");
+			}
+			if (enclosing.getNestingKind() == NestingKind.MEMBER && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+				return error(type, "@GenerateRowMapper nested class must be static");
+			}
+			if (enclosing.getNestingKind() == NestingKind.LOCAL || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+				return error(type, "@GenerateRowMapper class must be a top level or member class");
+			}
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		return error(type, "@GenerateRowMapper class needs a non private no-arg constructor");
+	}
+
+	// declared instance fields (as ClassExplorer), keyed by lower case name
+	private List<Attribute> attributes(TypeElement type) {
+		List<Attribute> attributes = new ArrayList<>();
+		Set<String> names = new HashSet<>();
+		boolean lombokSetters = hasAnnotation(type, "lombok.Data") || hasAnnotation(type, "lombok.Setter");
+
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+			if (modifiers.contains(Modifier.STATIC)) {
+				continue;
+			}
+			String fieldName = field.getSimpleName().toString();
+			if (modifiers.contains(Modifier.FINAL)) {
+				warning(field, "Final field '" + fieldName + "' is not mapped");
+				continue;
+			}
+			if (!names.add(fieldName.toLowerCase())) {
+				warning(field, "Field '" + fieldName + "' differs from another only by case: not mapped");
+				continue;
+			}
+
+			String assignment;
+			ExecutableElement setter = findSetter(type, field);
+			if (setter != null) {
+				assignment = "pojo." + setter.getSimpleName() + "(%s);";
+			} else if (!modifiers.contains(Modifier.PRIVATE)) {
+				assignment = "pojo." + fieldName + " = %s;";
+			} else if (lombokSetters || hasAnnotation(field, "lombok.Setter")) {
+				// Lombok setters may not be visible yet in this round
+				assignment = "pojo." + setterNames(field)[0] + "(%s);";
+			} else {
+				error(field, "Private field '" + fieldName + "' has no accessible setter");
+				continue;
+			}
+			String typeName = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+			attributes.add(new Attribute(fieldName.toLowerCase(), typeName, assignment));
+		}
+		return attributes;
+	}
+
+	// setter as found by ApplierFactory: setName(type), setFlag(boolean) for an isFlag field
+	private ExecutableElement findSetter(TypeElement type, VariableElement field) {
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+		for (String candidate : setterNames(field)) {
+			for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+				Set<Modifier> modifiers = method.getModifiers();
+				if (method.getSimpleName().contentEquals(candidate)
+						&& method.getParameters().size() == 1
+						&& processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())
+						&& !modifiers.contains(Modifier.STATIC)
+						&& !modifiers.contains(Modifier.PRIVATE)
+						&& (modifiers.contains(Modifier.PUBLIC)
+						|| processingEnv.getElementUtils().getPackageOf(method).equals(pkg))) {
+					return method;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String[] setterNames(VariableElement field) {
+		String name = field.getSimpleName().toString();
+		if (field.asType().getKind() == TypeKind.BOOLEAN && name.startsWith("is") && name.length() > 2
+				&& Character.isUpperCase(name.charAt(2))) {
+			return new String[]{"set" + name.substring(2), "set" + capitalize(name)};
+		}
+		return new String[]{"set" + capitalize(name)};
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static boolean hasAnnotation(Element element, String annotation) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// source generation
+
+	private void generate(TypeElement type, List<Attribute> attributes) {
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+				.replace('$', '_') + SUFFIX;
+		String pojo = type.getQualifiedName().toString();
+
+		StringBuilder src = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			src.append("package ").append(packageName).append(";\n\n");
+		}
+		src.append("import eu.ts.jdbc.dsl.mapping.GeneratedRowMapper;\n\n")
+				.append("import java.sql.ResultSet;\n\n")
+				.append("/**\n * Generated by ").append(getClass().getName()).append(" for ").append(pojo)
+				.append(": do not edit\n */\n")
+				.append("public final class ").append(simpleName).append(" implements GeneratedRowMapper<").append(pojo).append("> {\n\n")
+				.append("\tprivate final int[] attributes;\n\n")
+				.append("\tpublic ").append(simpleName).append("() {\n\t\tthis(new int[0]);\n\t}\n\n")
+				.append("\tprivate ").append(simpleName).append("(int[] attributes) {\n\t\tthis.attributes = attributes;\n\t}\n\n");
+
+		src.append("\t@Override\n\tpublic int attribute(String name) {\n\t\tswitch (name) {\n");
+		for (int i = 0; i < attributes.size(); i++) {
+			src.append("\t\t\tcase \"").append(attributes.get(i).name).append("\":\n\t\t\t\treturn ").append(i + 1).append(";\n");
+		}
+		src.append("\t\t\tdefault:\n\t\t\t\treturn 0;\n\t\t}\n\t}\n\n");
+
+		src.append("\t@Override\n\tpublic GeneratedRowMapper<").append(pojo).append("> bind(int[] attributes) {\n")
+				.append("\t\treturn new ").append(simpleName).append("(attributes.clone());\n\t}\n\n");
+
+		src.append("\t@Override\n\t@SuppressWarnings(\"unchecked\")\n\tpublic ").append(pojo)
+				.append(" handle(ResultSet rs) throws Exception {\n")
+				.append("\t\t").append(pojo).append(" pojo = new ").append(pojo).append("();\n")
+				.append("\t\tfor (int i = 0; i < attributes.length; i++) {\n")
+				.append("\t\t\tint col = i + 1;\n")
+				.append("\t\t\tswitch (attributes[i]) {\n");
+		for (int i = 0; i < attributes.size(); i++) {
+			Attribute attribute = attributes.get(i);
+			src.append("\t\t\t\tcase ").append(i + 1).append(":");
+			String wrapped = WRAPPED.get(attribute.type);
+			if (wrapped != null) {
+				// wrappers keep SQL NULL as null
+				src.append(" {\n\t\t\t\t\t").append(wrapped).append(" value = rs.").append(GETTERS.get(wrapped)).append("(col);\n")
+						.append("\t\t\t\t\t").append(String.format(attribute.assignment, "rs.wasNull() ? null : value")).append("\n")
+						.append("\t\t\t\t\tbreak;\n\t\t\t\t}\n");
+			} else {
+				String getter = GETTERS.get(attribute.type);
+				String read = (getter != null) ? "rs." + getter + "(col)"
+						: "(" + attribute.type + ") rs.getObject(col, " + attribute.type + ".class)";
+				src.append("\n\t\t\t\t\t").append(String.format(attribute.assignment, read)).append("\n")
+						.append("\t\t\t\t\tbreak;\n");
+			}
+		}
+		src.append("\t\t\t}\n\t\t}\n\t\treturn pojo;\n\t}\n}\n");
+
+		try {
+			JavaFileObject file = processingEnv.getFiler()
+					.createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type);
+			try (Writer writer = file.openWriter()) {
+				writer.write(src.toString());
+			}
+		} catch (IOException ex) {
+			error(type, "Unable to write " + simpleName + ": " + ex.getMessage());
+		}
+	}
+
+	private boolean error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+		return false;
+	}
+
+	private void warning(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+	}
+}
@@ -0,0 +1,76 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.processor;
+
+import eu.ts.jdbc.dsl.Query;
+import eu.ts.jdbc.dsl.mapping.GenerateRowMapper;
+import eu.ts.jdbc.synthetic.SyntheticDataSource;
+import eu.ts.jdbc.synthetic.SyntheticTable;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.List;
+
+public class RowMapperProcessorTest {
+
+	@GenerateRowMapper
+	public static class Person {
+		private long id;
+		private String name;
+		private Integer age;
+		BigDecimal salary;
+		private boolean isActive;
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public void setAge(Integer age) {
+			this.age = age;
+		}
+
+		public void setActive(boolean active) {
+			this.isActive = active;
+		}
+
+		@Override
+		public String toString() {
+			return id + ":" + name + ":" + age + ":" + salary + ":" + isActive;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		SyntheticDataSource dataSource = new SyntheticDataSource(SyntheticTable.rows(5)
+				.column("id", Types.BIGINT)
+				.column("full_name", Types.VARCHAR, 8, 0)
+				.column("age", Types.INTEGER, 0, 0.5)
+				.column("salary", Types.DECIMAL)
+				.column("isactive", Types.BOOLEAN)
+				.column("unknown", Types.VARCHAR));
+
+		// generated class present: compiled by this processor during test compilation
+		System.out.println(Class.forName(Person.class.getName().replace('$', '_') + "_RowMapper").getName());
+
+		List<Person> people = Query.select(dataSource, "select * from person")
+				.mapColumn("full_name", "name")
+				.fetch(Person.class);
+		people.forEach(System.out::println);
+	}
+}
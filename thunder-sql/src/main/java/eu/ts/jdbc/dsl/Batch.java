@@ -0,0 +1,244 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.ApplierFactory;
+import eu.ts.jdbc.dsl.mapping.ClassExplorer;
+import eu.ts.jdbc.dsl.mapping.ParameterBinder;
+import eu.ts.jdbc.dsl.mapping.QueryCache;
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+import eu.ts.jdbc.pool.StatementCache;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * JDBC batch execution for bulk inserts/updates using named parameters.
+ * <p>
+ * Rows are bound with addBatch, flushed every chunkSize rows and committed per chunk
+ * (when the connection is not in autoCommit mode). Inside a UnitOfWork the unit owns the commit.
+ */
+public class Batch {
+
+	private final static int DEFAULT_CHUNK_SIZE = 1000;
+
+	private final DataSource dataSource;
+	private final QueryParser parsedQuery;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	private final Map<String, String> parameterMapping = new HashMap<>();
+	// bean getters by class, kept across executions of this batch
+	private final Map<Class<?>, Map<String, Function<Object, Object>>> gettersByClass = new ConcurrentHashMap<>();
+
+
+	private Batch(DataSource dataSource, QueryParser statement) {
+		if (dataSource == null) {
+			throw new RuntimeException("Unable proceed without a DataSource");
+		}
+		this.dataSource = dataSource;
+		this.parsedQuery = statement;
+	}
+
+	public static Batch open(DataSource dataSource, final String sql) {
+		return new Batch(dataSource, QueryCache.registerSqlStatement(sql));
+	}
+
+	public static Batch open(DataSource dataSource, final QueryParser statement) {
+		return new Batch(dataSource, statement);
+	}
+
+
+	public Batch chunkSize(final int rows) {
+		if (rows <= 0) {
+			throw new RuntimeException("Invalid batch chunk size: " + rows);
+		}
+		this.chunkSize = rows;
+		return this;
+	}
+
+	// bean property used for a named parameter (default: same name, case insensitive)
+	public Batch mapParameter(final String parameterName, final String propertyName) {
+		this.parameterMapping.put(parameterName.toLowerCase(), propertyName.toLowerCase());
+		this.gettersByClass.clear();
+		return this;
+	}
+
+
+	// Parameter maps: keys are the named parameters of the statement
+	public BatchResult execute(final Iterable<? extends Map<String, ?>> rows) {
+		return execute(rows.iterator());
+	}
+
+	public BatchResult execute(final Stream<? extends Map<String, ?>> rows) {
+		return execute(rows.iterator());
+	}
+
+	private BatchResult execute(final Iterator<? extends Map<String, ?>> rows) {
+		return run(rows, Batch::mapValue);
+	}
+
+	private static Object mapValue(Map<String, ?> row, String name) {
+		Object value = row.get(name);
+		if (value == null && !row.containsKey(name)) {
+			throw new RuntimeException(String.format("Missing parameter '%s' in batch row", name));
+		}
+		return value;
+	}
+
+
+	// POJOs: named parameters are read from bean fields
+	public <T> BatchResult executeBeans(final Iterable<T> beans) {
+		return executeBeans(beans.iterator());
+	}
+
+	public <T> BatchResult executeBeans(final Stream<T> beans) {
+		return executeBeans(beans.iterator());
+	}
+
+	private <T> BatchResult executeBeans(final Iterator<T> beans) {
+		return run(beans, this::beanValue);
+	}
+
+	private Object beanValue(Object bean, String name) {
+		Map<String, Function<Object, Object>> getters = gettersByClass.get(bean.getClass());
+		if (getters == null) {
+			getters = buildGetters(bean.getClass());
+			gettersByClass.put(bean.getClass(), getters);
+		}
+		return getters.get(name).apply(bean);
+	}
+
+
+	// Mixed parameter maps and POJOs on a connection owned by the caller (WriteBehindQueue)
+	@SuppressWarnings("unchecked")
+	BatchResult execute(final Connection connection, final List<?> rows) throws SQLException {
+		BatchResult result = new BatchResult();
+		run(connection, !connection.getAutoCommit(), rows.iterator(),
+				(row, name) -> (row instanceof Map) ? mapValue((Map<String, ?>) row, name) : beanValue(row, name),
+				result);
+		return result;
+	}
+
+	private Map<String, Function<Object, Object>> buildGetters(Class<?> clazz) {
+		Map<String, Field> fields = ClassExplorer.build(clazz).getFields();
+		Map<String, Function<Object, Object>> getters = new HashMap<>();
+		for (String name : parsedQuery.getParameterNames()) {
+			String property = parameterMapping.get(name.toLowerCase());
+			Field field = fields.get((property == null) ? name.toLowerCase() : property);
+			if (field == null) {
+				throw new RuntimeException(String.format("Unable to map parameter '%s' to class '%s'", name, clazz.getName()));
+			}
+			getters.put(name, ApplierFactory.getter(field));
+		}
+		return getters;
+	}
+
+
+	private interface ValueExtractor<R> {
+		Object value(R row, String parameterName);
+	}
+
+	private <R> BatchResult run(final Iterator<R> rows, final ValueExtractor<R> extractor) {
+		BatchResult result = new BatchResult();
+
+		// inside a unit of work: its connection, no per chunk commit
+		Connection bound = UnitOfWork.connection(dataSource);
+		Connection connection = null;
+		try {
+			connection = (bound != null) ? bound : dataSource.getConnection();
+			run(connection, bound == null && !connection.getAutoCommit(), rows, extractor, result);
+		} catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		} finally {
+			if (bound == null && connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException ignored) { /* ignored */ }
+			}
+		}
+		return result;
+	}
+
+	// the statement comes from the connection statement cache (when enabled): a connection held across batches,
+	// as by WriteBehindQueue, does not prepare it again
+	private <R> void run(final Connection connection, final boolean commit, final Iterator<R> rows,
+						 final ValueExtractor<R> extractor, final BatchResult result) throws SQLException {
+		PreparedStatement ps = StatementCache.prepare(dataSource, connection, parsedQuery.getName(),
+				parsedQuery.getRunnableSql());
+		try {
+			String[] names = parsedQuery.getParameterNames();
+			int[] plan = parsedQuery.getBindingPlan();
+			Object[] values = new Object[names.length];
+
+			int pending = 0;
+			try {
+				while (rows.hasNext()) {
+					R row = rows.next();
+					for (int i = 0; i < names.length; i++) {
+						values[i] = extractor.value(row, names[i]);
+					}
+					for (int i = 0; i < plan.length; i++) {
+						ParameterBinder.bind(ps, i + 1, values[plan[i]]);
+					}
+					ps.addBatch();
+
+					if (++pending == chunkSize) {
+						flush(connection, ps, commit, pending, result);
+						pending = 0;
+					}
+				}
+				if (pending > 0) {
+					flush(connection, ps, commit, pending, result);
+				}
+			} catch (Exception ex) {
+				if (commit) {
+					try {
+						connection.rollback();
+					} catch (SQLException ignored) { /* ignored */ }
+				}
+				throw new RuntimeException(String.format("Batch failed after %d %s chunks (%d rows)",
+						result.getChunks(), commit ? "committed" : "executed", result.getRows()), ex);
+			}
+		} finally {
+			StatementCache.release(dataSource, connection, parsedQuery.getName(), ps);
+		}
+	}
+
+	private void flush(Connection connection, PreparedStatement ps, boolean commit, int rows, BatchResult result)
+			throws SQLException {
+		int[] counts = ps.executeBatch();
+		if (commit) {
+			connection.commit();
+		}
+		result.addChunk(rows, counts);
+	}
+
+
+	@Override
+	public String toString() {
+		return parsedQuery.getRunnableSql();
+	}
+}
@@ -0,0 +1,64 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import lombok.Getter;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link Batch} execution: per-chunk JDBC update counts
+ */
+public class BatchResult {
+
+	@Getter
+	private long rows = 0;
+	private final List<int[]> chunkUpdateCounts = new ArrayList<>();
+
+	void addChunk(int rows, int[] updateCounts) {
+		this.rows += rows;
+		this.chunkUpdateCounts.add(updateCounts);
+	}
+
+	public int getChunks() {
+		return chunkUpdateCounts.size();
+	}
+
+	public List<int[]> getChunkUpdateCounts() {
+		return Collections.unmodifiableList(chunkUpdateCounts);
+	}
+
+	// Sum of known update counts (drivers may answer SUCCESS_NO_INFO)
+	public long getUpdatedRows() {
+		long updated = 0;
+		for (int[] counts : chunkUpdateCounts) {
+			for (int count : counts) {
+				if (count != Statement.SUCCESS_NO_INFO && count > 0) {
+					updated += count;
+				}
+			}
+		}
+		return updated;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BatchResult[rows=%d, chunks=%d, updated=%d]", rows, getChunks(), getUpdatedRows());
+	}
+}
@@ -0,0 +1,132 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable, thread safe query handle: prepare once, execute many (can be kept in a static field).
+ * <p>
+ * Parameter values are given positionally, in the order of {@link #getParameterNames()};
+ * the row mapper is resolved on first execution and then reused without any lookup.
+ *
+ * @param <T>
+ */
+public final class CompiledQuery<T> {
+
+	private final DataSource dataSource;
+	private final QueryParser statement;
+	private final Class<T> clazz;
+	private final Map<String, String> columnMapping;
+	private final int fetchSize;
+
+	private volatile ResultSetHandler<T> rowHandler;
+
+
+	CompiledQuery(DataSource dataSource, QueryParser statement, Class<T> clazz, ResultSetHandler<T> handler,
+				  Map<String, String> columnMapping, int fetchSize) {
+		if (dataSource == null) {
+			throw new RuntimeException("Unable proceed without a DataSource");
+		}
+		this.dataSource = dataSource;
+		this.statement = statement;
+		this.clazz = clazz;
+		this.columnMapping = Collections.unmodifiableMap(new HashMap<>(columnMapping));
+		this.fetchSize = fetchSize;
+		this.rowHandler = handler;
+	}
+
+
+	public List<T> fetch(final Object... values) {
+		checkValues(values);
+		List<T> retList = new ArrayList<>();
+		QueryExecution execution = new QueryExecution(dataSource, statement);
+		try {
+			ResultSet rs = execution.open(fetchSize, values);
+			ResultSetHandler<T> mapper = rowHandler(rs);
+			while (execution.next()) {
+				retList.add(mapper.handle(rs));
+			}
+			execution.completed(retList.size());
+		} catch (Exception ex) {
+			execution.failed();
+			throw new RuntimeException(ex);
+		} finally {
+			execution.close();
+		}
+		return retList;
+	}
+
+	// Resources are released on Stream close or when the last row has been consumed
+	public Stream<T> stream(final Object... values) {
+		checkValues(values);
+		QueryExecution execution = new QueryExecution(dataSource, statement);
+		try {
+			ResultSet rs = execution.open(fetchSize, values);
+			ResultSetIterator<T> iterator = new ResultSetIterator<>(execution, rs, rowHandler(rs), execution::close);
+
+			return StreamSupport.stream(iterator.spliterator(), false).onClose(iterator::close);
+		} catch (Exception ex) {
+			execution.close();
+			throw new RuntimeException(ex);
+		}
+	}
+
+
+	public String[] getParameterNames() {
+		return statement.getParameterNames().clone();
+	}
+
+	public QueryParser getStatement() {
+		return statement;
+	}
+
+
+	private void checkValues(Object[] values) {
+		int expected = statement.getParameterNames().length;
+		if (values.length != expected) {
+			throw new RuntimeException(String.format("Expected %d parameter values %s, got %d",
+					expected, Arrays.toString(statement.getParameterNames()), values.length));
+		}
+	}
+
+	private ResultSetHandler<T> rowHandler(ResultSet rs) throws SQLException {
+		ResultSetHandler<T> mapper = rowHandler;
+		if (mapper == null) {
+			// benign race: concurrent first executions resolve the same cached mapper
+			mapper = Query.queryClassMapperCache.mapper(statement.getName(), clazz, columnMapping, rs.getMetaData());
+			rowHandler = mapper;
+		}
+		return mapper;
+	}
+
+	@Override
+	public String toString() {
+		return statement.getRunnableSql();
+	}
+}
@@ -0,0 +1,244 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.ApplierFactory;
+import eu.ts.jdbc.dsl.mapping.ClassExplorer;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Parent/child graph declaration for joined result sets.
+ * <p>
+ * Each level is identified by one or more numeric key columns; rows are read once and instances are
+ * de-duplicated through primitive key identity maps, so parents are created once and children attached on
+ * first sight. Child identities are scoped to their parent instance: a child appearing under two parents
+ * (many-to-many join) is attached to both.
+ * <pre>
+ * GraphMapping&lt;Order&gt; graph = GraphMapping.of(Order.class, "order_id")
+ *         .child("lines", GraphMapping.of(OrderLine.class, "order_id", "line_no").prefix("line_"));
+ * List&lt;Order&gt; orders = Query.select(ds, sql).fetchGraph(graph);
+ * </pre>
+ *
+ * @param <T>
+ */
+public final class GraphMapping<T> {
+
+	private final Class<T> clazz;
+	private final String[] keyColumns;
+	private String prefix = null;
+	private final List<Child> children = new ArrayList<>();
+
+	private final static class Child {
+		private final Function<Object, Object> getter;
+		private final ApplierFactory.ObjectSetter setter;
+		private final Supplier<Collection<Object>> collectionFactory;
+		private final GraphMapping<?> mapping;
+
+		private Child(Field field, Supplier<Collection<Object>> collectionFactory, GraphMapping<?> mapping) {
+			this.getter = ApplierFactory.getter(field);
+			this.setter = ApplierFactory.objectSetter(field);
+			this.collectionFactory = collectionFactory;
+			this.mapping = mapping;
+		}
+
+		// parent collection, created on first child
+		@SuppressWarnings("unchecked")
+		private Collection<Object> collection(Object parent) {
+			Collection<Object> collection = (Collection<Object>) getter.apply(parent);
+			if (collection == null) {
+				collection = collectionFactory.get();
+				setter.set(parent, collection);
+			}
+			return collection;
+		}
+	}
+
+	private GraphMapping(Class<T> clazz, String[] keyColumns) {
+		this.clazz = clazz;
+		this.keyColumns = keyColumns;
+	}
+
+	// one key column, or all the columns of a composite key (e.g. "order_id", "line_no")
+	public static <T> GraphMapping<T> of(final Class<T> clazz, final String... keyColumns) {
+		if (clazz == null || keyColumns == null || keyColumns.length == 0) {
+			throw new RuntimeException("Graph mapping needs a class and a key column");
+		}
+		for (String keyColumn : keyColumns) {
+			if (keyColumn == null) {
+				throw new RuntimeException("Graph mapping key columns can not be null");
+			}
+		}
+		return new GraphMapping<>(clazz, keyColumns.clone());
+	}
+
+	// only columns starting with prefix are mapped, prefix stripped (e.g. "line_id" -> "id")
+	public GraphMapping<T> prefix(final String columnPrefix) {
+		this.prefix = columnPrefix.toLowerCase();
+		return this;
+	}
+
+	// collection field (List or Set) of this class filled with the child level
+	public GraphMapping<T> child(final String collectionField, final GraphMapping<?> child) {
+		Field field = ClassExplorer.build(clazz).getFields().get(collectionField.toLowerCase());
+		if (field == null) {
+			throw new RuntimeException("Unable to find field '" + collectionField + "' in class: " + clazz.getName());
+		}
+
+		Supplier<Collection<Object>> collectionFactory;
+		if (field.getType().isAssignableFrom(ArrayList.class)) {
+			collectionFactory = ArrayList::new;
+		} else if (field.getType().isAssignableFrom(LinkedHashSet.class)) {
+			collectionFactory = LinkedHashSet::new;
+		} else {
+			throw new RuntimeException("Field '" + collectionField + "' must be a List, Set or Collection");
+		}
+		children.add(new Child(field, collectionFactory, child));
+		return this;
+	}
+
+
+	// single pass over the ResultSet: roots in first seen order
+	@SuppressWarnings("unchecked")
+	List<T> read(ResultSet rs, String queryName, Map<String, String> columnMapping, QueryExecution execution)
+			throws Exception {
+		Level root = new Level(this, rs, queryName, columnMapping);
+		LongIdentityMap<Object> identities = new LongIdentityMap<>();
+		List<T> roots = new ArrayList<>();
+
+		long rows = 0;
+		while (execution.next()) {
+			rows++;
+			Node parent = root.row(rs, identities);
+			if (parent != null && root.created) {
+				roots.add((T) parent.instance);
+			}
+		}
+		execution.completed(rows);
+		return roots;
+	}
+
+
+	// mapped instance with the identity maps of its children, one per child level
+	private final static class Node {
+		private final Object instance;
+		private final LongIdentityMap<Object>[] scopes;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private Node(Object instance, int children) {
+			this.instance = instance;
+			this.scopes = new LongIdentityMap[children];
+		}
+
+		private LongIdentityMap<Object> scope(int child) {
+			if (scopes[child] == null) {
+				scopes[child] = new LongIdentityMap<>();
+			}
+			return scopes[child];
+		}
+	}
+
+	// per execution state of a graph level
+	private final static class Level {
+		private final GraphMapping<?> mapping;
+		private final ResultSetHandler<?> mapper;
+		private final int[] keyIndexes;
+		private final Level[] children;
+		private boolean created;
+
+		private Level(GraphMapping<?> mapping, ResultSet rs, String queryName, Map<String, String> columnMapping)
+				throws SQLException {
+			ResultSetMetaData rsmd = rs.getMetaData();
+			this.mapping = mapping;
+			this.keyIndexes = new int[mapping.keyColumns.length];
+			for (int i = 0; i < keyIndexes.length; i++) {
+				keyIndexes[i] = rs.findColumn(mapping.keyColumns[i]);
+			}
+			this.mapper = Query.queryClassMapperCache.mapper(queryName, mapping.clazz,
+					levelMapping(mapping.prefix, columnMapping, rsmd), rsmd);
+
+			this.children = new Level[mapping.children.size()];
+			for (int i = 0; i < children.length; i++) {
+				children[i] = new Level(mapping.children.get(i).mapping, rs, queryName, columnMapping);
+			}
+		}
+
+		// node for the current row within the parent scope (null when a key column is NULL,
+		// e.g. outer join without children)
+		@SuppressWarnings("unchecked")
+		private Node row(ResultSet rs, LongIdentityMap<Object> scope) throws Exception {
+			// composite keys: one nested map per leading key column
+			int last = keyIndexes.length - 1;
+			for (int k = 0; k < last; k++) {
+				long key = rs.getLong(keyIndexes[k]);
+				if (rs.wasNull()) {
+					created = false;
+					return null;
+				}
+				LongIdentityMap<Object> next = (LongIdentityMap<Object>) scope.get(key);
+				if (next == null) {
+					next = new LongIdentityMap<>();
+					scope.put(key, next);
+				}
+				scope = next;
+			}
+			long key = rs.getLong(keyIndexes[last]);
+			if (rs.wasNull()) {
+				created = false;
+				return null;
+			}
+			Node node = (Node) scope.get(key);
+			created = (node == null);
+			if (created) {
+				node = new Node(mapper.handle(rs), children.length);
+				scope.put(key, node);
+			}
+
+			for (int i = 0; i < children.length; i++) {
+				Node child = children[i].row(rs, node.scope(i));
+				if (child != null && children[i].created) {
+					mapping.children.get(i).collection(node.instance).add(child.instance);
+				}
+			}
+			return node;
+		}
+
+		// prefixed level: columns of other levels stay unmapped
+		private static Map<String, String> levelMapping(String prefix, Map<String, String> columnMapping,
+														ResultSetMetaData rsmd) throws SQLException {
+			if (prefix == null) {
+				return columnMapping;
+			}
+			Map<String, String> mapping = new HashMap<>();
+			for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+				String column = rsmd.getColumnLabel(i).toLowerCase();
+				mapping.put(column, column.startsWith(prefix) ? column.substring(prefix.length()) : "");
+			}
+			return mapping;
+		}
+	}
+}
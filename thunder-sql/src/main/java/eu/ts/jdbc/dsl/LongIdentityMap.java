@@ -0,0 +1,94 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+/**
+ * Open addressing identity map on primitive long keys: no boxing while de-duplicating graph rows
+ *
+ * @param <V>
+ */
+final class LongIdentityMap<V> {
+	private long[] keys;
+	private Object[] values;
+	private int size = 0;
+
+	LongIdentityMap() {
+		keys = new long[64];
+		values = new Object[64];
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	// values are never null: an empty value marks a free slot
+	void put(long key, V value) {
+		if ((size + 1) * 2 > keys.length) {
+			resize();
+		}
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (values[i] != null) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new Object[oldValues.length * 2];
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] != null) {
+				int i = slot(oldKeys[j], mask);
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	@Override
+	public String toString() {
+		return "LongIdentityMap[size=" + size + ", capacity=" + keys.length + "]";
+	}
+}
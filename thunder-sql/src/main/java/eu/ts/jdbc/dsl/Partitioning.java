@@ -0,0 +1,114 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Split of a query in bounded sub-queries on a partition column.
+ * <p>
+ * Each partition wraps the original statement as
+ * <code>SELECT * FROM (original) WHERE predicate</code>; rows with a NULL partition column
+ * get their own partition, so nothing is lost. The partition column must be in the select list.
+ * Sub-queries are named after the original statement ({@code <name>#<partitioning id>p<i>}), so they never
+ * take the place of ad-hoc statements in the statement registry.
+ */
+public class Partitioning {
+
+	private final String column;
+	private final List<String> predicates;
+	// same column and bounds, same id: statement names stay stable across executions
+	private final String id;
+
+	private Partitioning(String column, List<String> predicates) {
+		this.column = column;
+		predicates.add(column + " IS NULL");
+		this.predicates = Collections.unmodifiableList(predicates);
+		this.id = QueryParser.queryId(String.join("\n", predicates));
+	}
+
+	// MOD(column, buckets) = k
+	public static Partitioning modulo(String column, int buckets) {
+		checkBuckets(buckets);
+		List<String> predicates = new ArrayList<>();
+		for (int k = 0; k < buckets; k++) {
+			// negative values have a negative remainder
+			predicates.add(String.format("ABS(MOD(%s, %d)) = %d", column, buckets, k));
+		}
+		return new Partitioning(column, predicates);
+	}
+
+	// Oracle ORA_HASH(column, buckets - 1) = k (any column type)
+	public static Partitioning oraHash(String column, int buckets) {
+		checkBuckets(buckets);
+		List<String> predicates = new ArrayList<>();
+		for (int k = 0; k < buckets; k++) {
+			predicates.add(String.format("ORA_HASH(%s, %d) = %d", column, buckets - 1, k));
+		}
+		return new Partitioning(column, predicates);
+	}
+
+	// ascending bounds b0..bn: (-inf, b0), [b0, b1) ... [bn, +inf)
+	public static Partitioning ranges(String column, long... bounds) {
+		if (bounds.length == 0) {
+			throw new RuntimeException("At least one range bound is needed");
+		}
+		List<String> predicates = new ArrayList<>();
+		predicates.add(String.format("%s < %d", column, bounds[0]));
+		for (int i = 1; i < bounds.length; i++) {
+			if (bounds[i] <= bounds[i - 1]) {
+				throw new RuntimeException("Range bounds must be ascending");
+			}
+			predicates.add(String.format("%s >= %d AND %s < %d", column, bounds[i - 1], column, bounds[i]));
+		}
+		predicates.add(String.format("%s >= %d", column, bounds[bounds.length - 1]));
+		return new Partitioning(column, predicates);
+	}
+
+	private static void checkBuckets(int buckets) {
+		if (buckets <= 0) {
+			throw new RuntimeException("Invalid number of partitions: " + buckets);
+		}
+	}
+
+
+	public String getColumn() {
+		return column;
+	}
+
+	public int size() {
+		return predicates.size();
+	}
+
+	// name of a partition sub-query of the given statement
+	public String partitionName(String statementName, int partition) {
+		return statementName + "#" + id + "p" + partition;
+	}
+
+	// sub-query of a single partition (named parameters are preserved): the closing parenthesis goes on
+	// its own line so a trailing -- comment in the original statement can not swallow it
+	public String partitionSql(String originalSql, int partition) {
+		String sql = originalSql.trim();
+		while (sql.endsWith(";")) {
+			sql = sql.substring(0, sql.length() - 1).trim();
+		}
+		return "SELECT * FROM (" + sql + "\n) tsp WHERE " + predicates.get(partition);
+	}
+}
@@ -15,35 +15,48 @@
  =============================================================================*/
 package eu.ts.jdbc.dsl;
 
+import eu.ts.jdbc.dsl.columnar.ColumnarResult;
+import eu.ts.jdbc.dsl.export.ExportBuffer;
+import eu.ts.jdbc.dsl.export.ResultSetExporter;
 import eu.ts.jdbc.dsl.mapping.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
-import java.lang.reflect.Field;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class Query implements AutoCloseable {
-	private final static Logger log = LoggerFactory.getLogger(Query.class);
-
 	private final static boolean DEFAULT_AUTO_CLOSE = true;
 
 	private QueryParser parsedQuery;
 
 	private DataSource dataSource = null;
-	private Connection connection = null;
-	private PreparedStatement ps = null;
-	private ResultSet rs = null;
+	private volatile QueryExecution execution = null;
+	private int fetchSize = 0;
+	private Executor executor = null;
+	private Duration cacheTtl = null;
+	private int parallelism = 0;
 
 	private final Map<String, QueryParameterApplier> paramAppliersMap = new HashMap<>();
+	private final Map<String, Object> paramValues = new HashMap<>();
 
-	private final static QueryClassMapperCache queryClassMapperCache = new QueryClassMapperCache();
+	final static QueryClassMapperCache queryClassMapperCache = new QueryClassMapperCache();
 	private final Map<String, String> columnMapping = new HashMap<>();
 
 
@@ -55,8 +68,12 @@ public class Query implements AutoCloseable {
 	}
 
 	private Query(DataSource dataSource, String sql) {
+		this(dataSource, QueryCache.registerSqlStatement(sql));
+	}
+
+	private Query(DataSource dataSource, QueryParser statement) {
 		this(dataSource);
-		this.parsedQuery = QueryCache.registerSqlStatement(sql);
+		this.parsedQuery = checkStatement(statement);
 	}
 
 	public Query select(final String sql) {
@@ -64,6 +81,20 @@ public class Query implements AutoCloseable {
 		return this;
 	}
 
+	// Precompiled statement (e.g. kept in a static field): no registry lookup
+	public Query select(final QueryParser statement) {
+		this.parsedQuery = checkStatement(statement);
+		return this;
+	}
+
+	// e.g. QueryCache.getNamedStatement of a name never registered
+	private static QueryParser checkStatement(final QueryParser statement) {
+		if (statement == null) {
+			throw new RuntimeException("Unable to run a null statement (unknown named statement?)");
+		}
+		return statement;
+	}
+
 	public Query select(final String sql, QueryParam... params) {
 		Query retQuery = select(sql);
 		for (QueryParam param : params) {
@@ -80,10 +111,22 @@ public class Query implements AutoCloseable {
 		return new Query(dataSource, sql);
 	}
 
+	public static Query select(DataSource dataSource, final QueryParser statement) {
+		return new Query(dataSource, statement);
+	}
+
+	public static Query select(DataSource dataSource, final QueryParser statement, final QueryParam... params) {
+		return (new Query(dataSource, statement)).addParameters(params);
+	}
+
 	public static Query select(DataSource dataSource, final String sql, final QueryParam... params) {
 		return (new Query(dataSource, sql)).addParameters(params);
 	}
 
+	public static Batch batch(DataSource dataSource, final String sql) {
+		return Batch.open(dataSource, sql);
+	}
+
 	public static <T> QueryParam<T> parameter(String parameter, T value) {
 		return new QueryParam<>(parameter, value);
 	}
@@ -105,34 +148,12 @@ public class Query implements AutoCloseable {
 
 
 	private <T> Query addParameter(String name, Class<T> parameterClass, T value) {
-		paramAppliersMap.put(name, buildParameterApplier(parameterClass, value));
+		paramAppliersMap.put(name, ParameterBinder.applier(parameterClass, value));
+		paramValues.put(name, value);
 		return this;
 	}
 
 
-	private <T> QueryParameterApplier buildParameterApplier(Class<T> paramClass, T value) {
-		//TODO: must cover most of types: BigDecimal,Boolean,SmallInt,Double,Float,byte[]
-		if (paramClass == Integer.class)
-			return (statement, position) -> statement.setInt(position, (Integer) value);
-		if (paramClass == Long.class)
-			return (statement, position) -> statement.setLong(position, (Long) value);
-		if (paramClass == String.class)
-			return (statement, position) -> statement.setString(position, (String) value);
-		if (paramClass == Timestamp.class)
-			return (statement, position) -> statement.setTimestamp(position, (Timestamp) value);
-		if (paramClass == Time.class)
-			return (statement, position) -> statement.setTime(position, (Time) value);
-		if (paramClass == Date.class)
-			return (statement, position) -> statement.setDate(position, (Date) value);
-		if (paramClass == BigDecimal.class)
-			return (statement, position) -> statement.setBigDecimal(position, (BigDecimal) value);
-		if (paramClass == Double.class)
-			return (statement, position) -> statement.setDouble(position, (Long) value);
-		// fallback for unknown object type
-		return (statement, position) -> statement.setObject(position, value);
-	}
-
-
 	public Query mapColumn(final String columnName, final String propertyName) {
 //		if (columnMapping.containsKey(columnName.toLowerCase())) {
 //			throw new DSLException(String.format("mapColumn '%s' -> '%s' already defined", columnName, propertyName));
@@ -156,6 +177,26 @@ public class Query implements AutoCloseable {
 	}
 
 
+	// Driver fetch size for this query (0: size learned by FetchSizeAdvisor)
+	public Query fetchSize(final int rows) {
+		if (rows < 0) {
+			throw new RuntimeException("Invalid fetch size: " + rows);
+		}
+		this.fetchSize = rows;
+		return this;
+	}
+
+
+	// Shared result cache for this query: fetch returns a read only list
+	public Query cached(final Duration ttl) {
+		if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new RuntimeException("Invalid result cache TTL: " + ttl);
+		}
+		this.cacheTtl = ttl;
+		return this;
+	}
+
+
 	// Automatic Class Fetcher
 	public <T> List<T> fetch(Class<T> clazz) {
 		return fetch(null, clazz, DEFAULT_AUTO_CLOSE);
@@ -185,152 +226,387 @@ public class Query implements AutoCloseable {
 
 	// Fetch with custom handler
 	private <T> List<T> fetch(final ResultSetHandler<T> handler, final Class<T> clazz, boolean autoClose) {
+		// inside a unit of work: its own snapshot and writes, not rows cached outside it
+		if (cacheTtl != null && UnitOfWork.connection(dataSource) == null) {
+			return ResultCache.get(
+					dataSource,
+					parsedQuery.getName(),
+					new HashMap<>(paramValues),
+					(handler == null) ? clazz : handler.getClass(),
+					new HashMap<>(columnMapping),
+					cacheTtl,
+					() -> load(handler, clazz, autoClose)
+			);
+		}
+		return load(handler, clazz, autoClose);
+	}
+
+	private <T> List<T> load(final ResultSetHandler<T> handler, final Class<T> clazz, boolean autoClose) {
 
 		List<T> retList = new LinkedList<>();
 
-		// check if clazz is instantiable
-		if (clazz != null) {
-			try {
-				clazz.getDeclaredConstructor();
-			} catch (NoSuchMethodException ex) {
-				throw new RuntimeException("Unable to find default constructor for: " + clazz.getName() + "()", ex);
-			}
-		} else {
-			throw new RuntimeException("Unable to fetch null resultSet class");
-		}
+		checkInstantiable(clazz);
 
 		try {
-			connection = dataSource.getConnection();
-			ps = connection.prepareStatement(parsedQuery.getRunnableSql());
-
-			// applying given parameters
-			String[] queryParams = parsedQuery.getParameters();
-			if (queryParams != null) {
-				for (int i = 0; i < queryParams.length; i++) {
-					paramAppliersMap.get(queryParams[i]).apply(ps, i + 1);
-				}
-			}
+			ResultSet rs = execute();
 
-			rs = ps.executeQuery();
-
-			// Parsing Query Metadata for late binding on destination clazz
-			Map<Integer, ClassAttributeApplier> bindMap = null;
-			if (handler == null) {
-				bindMap = getBinding(rs.getMetaData(), clazz);
-			}
+			ResultSetHandler<T> rowHandler = (handler == null) ? classHandler(rs, clazz) : handler;
 
 			// produce result class list from query
-			while (rs.next()) {
-
-				T retObj;
-				if (handler == null) {
-					try {
-						retObj = clazz.newInstance();
-					} catch (Exception ex) {
-						throw new RuntimeException("Unable to instantiate class: " + clazz.getName(), ex);
-					}
-					// applying bindMap rules
-					for (ClassAttributeApplier applier : bindMap.values()) {
-						applier.apply(retObj, rs);
-					}
-				} else {
-					retObj = handler.handle(rs);
-				}
-				retList.add(retObj);
+			while (execution.next()) {
+				retList.add(rowHandler.handle(rs));
 			}
+			execution.completed(retList.size());
 		} catch (Exception ex) {
+			failed();
 			throw new RuntimeException(ex);
 		} finally {
 			if (autoClose) {
-				try {
-					close();
-				} catch (Exception ignored) { /* ignored */ }
+				closeQuietly();
 			}
 		}
 		return retList;
 	}
 
 
-	private <T> Map<Integer, ClassAttributeApplier> getBinding(ResultSetMetaData rsmd, Class<T> clazz) throws SQLException {
-		String mappingId = String.format("%s[%s]", parsedQuery.getName(), clazz.getName());
-		Map<Integer, ClassAttributeApplier> bindMap = queryClassMapperCache.get(mappingId);
+	// Result beyond heapRows spilled to a temp file: close the list to delete it
+	public <T> SpillableList<T> fetchSpillable(final Class<T> clazz, final int heapRows) {
+		if (heapRows < 0) {
+			throw new RuntimeException("Invalid heap rows: " + heapRows);
+		}
+		checkInstantiable(clazz);
+
+		SpillableList<T> result = new SpillableList<>(clazz, heapRows);
+		try {
+			ResultSet rs = execute();
+			ResultSetHandler<T> rowHandler = classHandler(rs, clazz);
+			while (execution.next()) {
+				result.append(rowHandler.handle(rs));
+			}
+			result.seal();
+			execution.completed(result.size());
+			return result;
+		} catch (Exception ex) {
+			failed();
+			result.close();
+			throw new RuntimeException(ex);
+		} finally {
+			closeQuietly();
+		}
+	}
 
-		if (bindMap == null) {
-			Map<String, Field> destPojo = ClassExplorer.build(clazz).getFields();
 
-			// composing binding mapper
-			bindMap = new HashMap<>();
-			queryClassMapperCache.cache(mappingId, bindMap);
+	// Rows written straight to the stream (e.g. CsvExporter, JsonExporter): exported row count
+	public long export(final ResultSetExporter exporter, final OutputStream out) {
+		return export(exporter, ExportBuffer.of(out));
+	}
 
-			for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-				String columnName = rsmd.getColumnName(i).toLowerCase();
-				String mappedFiled = columnMapping.get(columnName);
-				mappedFiled = (mappedFiled == null) ? columnName : mappedFiled;
-				Field classField = destPojo.get(mappedFiled);
+	public long export(final ResultSetExporter exporter, final WritableByteChannel channel) {
+		return export(exporter, ExportBuffer.of(channel));
+	}
 
-				if (classField != null) {
-					// ClassAttributeApplier applier = buildApplier(classField, i);
-					bindMap.put(i, buildApplier(classField, i));
-				} else {
-					log.warn("Unable to map '{}' to class '{}'",
-							rsmd.getColumnName(i), clazz.getName()
-					);
-				}
-			}
+	private long export(final ResultSetExporter exporter, final ExportBuffer out) {
+		try {
+			long rows = exporter.export(execute(), out);
+			execution.completed(rows);
+			return rows;
+		} catch (Exception ex) {
+			failed();
+			throw new RuntimeException(ex);
+		} finally {
+			closeQuietly();
 		}
+	}
 
-		return bindMap;
-	}
-
-
-	private ClassAttributeApplier buildApplier(final Field field, final int col) {
-		Class<?> fieldType = field.getType();
-
-		// TODO: Performances are better on precise types mapped... add here!
-		if (fieldType.isPrimitive()) {
-			if (fieldType.equals(int.class))
-				return (pojo, rs) -> field.set(pojo, rs.getInt(col));
-			if (fieldType.equals(long.class))
-				return (pojo, rs) -> field.setLong(pojo, rs.getLong(col));
-			if (fieldType.equals(double.class))
-				return (pojo, rs) -> field.setDouble(pojo, rs.getDouble(col));
-			if (fieldType.equals(float.class))
-				return (pojo, rs) -> field.setFloat(pojo, rs.getFloat(col));
-		} else {
-			// JDBC getter Optimization
-			if (fieldType.equals(Integer.class))
-				return (pojo, rs) -> field.set(pojo, rs.getInt(col));
-			if (fieldType.equals(Long.class))
-				return (pojo, rs) -> field.setLong(pojo, rs.getLong(col));
-			if (fieldType.equals(String.class))
-				return (pojo, rs) -> field.set(pojo, rs.getString(col));
-			if (fieldType.equals(Double.class))
-				return (pojo, rs) -> field.set(pojo, rs.getDouble(col));
-			if (fieldType.equals(Float.class))
-				return (pojo, rs) -> field.setFloat(pojo, rs.getFloat(col));
+
+	// Joined rows into de-duplicated parent/child graphs, in a single pass
+	public <T> List<T> fetchGraph(final GraphMapping<T> graph) {
+		if (graph == null) {
+			throw new RuntimeException("Unable to fetch with a null GraphMapping");
+		}
+		try {
+			return graph.read(execute(), parsedQuery.getName(), columnMapping, execution);
+		} catch (Exception ex) {
+			failed();
+			throw new RuntimeException(ex);
+		} finally {
+			closeQuietly();
 		}
-		// return others generic appliers for Objects
-		return (pojo, rs) -> field.set(pojo, rs.getObject(col, fieldType));
 	}
 
 
-	@Override
-	public void close() throws Exception {
+	// Streaming Class Fetcher: rows are mapped one at a time while the Stream is consumed
+	public <T> Stream<T> stream(final Class<T> clazz) {
+		checkInstantiable(clazz);
+		return stream(null, clazz);
+	}
+
+	// Streaming fetch with custom handler
+	public <T> Stream<T> stream(final ResultSetHandler<T> handler) {
+		if (handler == null) {
+			throw new RuntimeException("Unable to stream with a null ResultSetHandler");
+		}
+		return stream(handler, null);
+	}
+
+	// Resources are released on Stream close or when the last row has been consumed
+	private <T> Stream<T> stream(final ResultSetHandler<T> handler, final Class<T> clazz) {
 		try {
-			if (rs != null && !rs.isClosed()) {
-				rs.close();
-			}
-		} catch (SQLException ignored) { /* ignored */ }
+			ResultSet rs = execute();
+
+			ResultSetHandler<T> rowHandler = (handler == null) ? classHandler(rs, clazz) : handler;
+			ResultSetIterator<T> iterator = new ResultSetIterator<>(execution, rs, rowHandler, this::closeQuietly);
+
+			return StreamSupport.stream(iterator.spliterator(), false).onClose(iterator::close);
+		} catch (Exception ex) {
+			closeQuietly();
+			throw new RuntimeException(ex);
+		}
+	}
+
+
+	// Columnar fetch: primitive column vectors instead of one object per row
+	public ColumnarResult fetchColumnar() {
+		return fetchColumnar(false);
+	}
+
+	public ColumnarResult fetchColumnar(final boolean offHeap) {
 		try {
-			if (ps != null && !ps.isClosed()) {
-				ps.close();
+			ColumnarResult result = ColumnarResult.read(execute(), offHeap);
+			execution.completed(result.getRowCount());
+			return result;
+		} catch (Exception ex) {
+			failed();
+			throw new RuntimeException(ex);
+		} finally {
+			closeQuietly();
+		}
+	}
+
+
+	// max concurrent partitions (default: partitions count, capped by the pool size)
+	public Query parallelism(final int partitions) {
+		if (partitions <= 0) {
+			throw new RuntimeException("Invalid parallelism: " + partitions);
+		}
+		this.parallelism = partitions;
+		return this;
+	}
+
+	// Partitions fetched concurrently on separate pooled connections, merged in partition order
+	public <T> List<T> fetchPartitioned(final Partitioning partitioning, final Class<T> clazz) {
+		checkInstantiable(clazz);
+		return merge(partitioned(partitioning, q -> q.fetch(clazz)));
+	}
+
+	public <T> List<T> fetchPartitioned(final Partitioning partitioning, final ResultSetHandler<T> handler) {
+		return merge(partitioned(partitioning, q -> q.fetch(handler)));
+	}
+
+	public <T> List<T> fetchPartitioned(final Partitioning partitioning, final Class<T> clazz,
+										final Comparator<? super T> order) {
+		List<T> rows = fetchPartitioned(partitioning, clazz);
+		rows.sort(order);
+		return rows;
+	}
+
+	// rows of each partition are available as soon as that partition (and the previous ones) completed
+	public <T> Stream<T> streamPartitioned(final Partitioning partitioning, final Class<T> clazz) {
+		checkInstantiable(clazz);
+		return partitioned(partitioning, q -> q.fetch(clazz)).stream()
+				.flatMap(partition -> join(partition).stream());
+	}
+
+	private <T> List<CompletableFuture<List<T>>> partitioned(final Partitioning partitioning,
+															 final Function<Query, List<T>> fetcher) {
+		final int partitions = partitioning.size();
+		final List<CompletableFuture<List<T>>> results = new ArrayList<>(partitions);
+		final Query[] queries = new Query[partitions];
+		for (int i = 0; i < partitions; i++) {
+			queries[i] = fork(QueryCache.registerPartitionStatement(
+					partitioning.partitionName(parsedQuery.getName(), i),
+					partitioning.partitionSql(parsedQuery.getOriginalSql(), i)
+			));
+			results.add(new CompletableFuture<>());
+		}
+
+		// leave at least one connection to other traffic
+		int workers = Math.min((parallelism > 0) ? parallelism : partitions,
+				Math.max(1, QueryExecutors.maximumConnections(dataSource) - 1));
+		workers = Math.min(workers, partitions);
+
+		final AtomicInteger next = new AtomicInteger();
+		Executor target = (executor != null) ? executor : QueryExecutors.forDataSource(dataSource);
+		for (int w = 0; w < workers; w++) {
+			target.execute(() -> {
+				int i;
+				while ((i = next.getAndIncrement()) < partitions) {
+					try {
+						results.get(i).complete(fetcher.apply(queries[i]));
+					} catch (Throwable ex) {
+						results.get(i).completeExceptionally(ex);
+					}
+				}
+			});
+		}
+		return results;
+	}
+
+	private static <T> List<T> merge(List<CompletableFuture<List<T>>> partitions) {
+		List<T> merged = new ArrayList<>();
+		for (CompletableFuture<List<T>> partition : partitions) {
+			merged.addAll(join(partition));
+		}
+		return merged;
+	}
+
+	// partition rows, rethrowing the failure of the partition query as is
+	private static <T> List<T> join(CompletableFuture<List<T>> partition) {
+		try {
+			return partition.join();
+		} catch (CompletionException ex) {
+			throw (ex.getCause() instanceof RuntimeException)
+					? (RuntimeException) ex.getCause()
+					: ex;
+		}
+	}
+
+	// same parameters, mapping and tuning on another statement
+	private Query fork(final QueryParser statement) {
+		Query query = new Query(dataSource, statement);
+		query.paramAppliersMap.putAll(paramAppliersMap);
+		query.paramValues.putAll(paramValues);
+		query.columnMapping.putAll(columnMapping);
+		query.fetchSize = fetchSize;
+		return query;
+	}
+
+
+	// executor for async fetches (default: bounded per DataSource executor)
+	public Query executor(final Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	public <T> CompletableFuture<List<T>> fetchAsync(final Class<T> clazz) {
+		return async(() -> fetch(clazz));
+	}
+
+	public <T> CompletableFuture<List<T>> fetchAsync(final ResultSetHandler<T> handler) {
+		return async(() -> fetch(handler));
+	}
+
+	// the Stream is produced asynchronously; rows are mapped by the consumer thread
+	public <T> CompletableFuture<Stream<T>> streamAsync(final Class<T> clazz) {
+		return async(() -> stream(clazz));
+	}
+
+	public <T> CompletableFuture<Stream<T>> streamAsync(final ResultSetHandler<T> handler) {
+		return async(() -> stream(handler));
+	}
+
+	// Future cancellation aborts the running statement
+	private <R> CompletableFuture<R> async(final Supplier<R> task) {
+		final CompletableFuture<R> future = new CompletableFuture<>();
+		future.whenComplete((result, ex) -> {
+			if (future.isCancelled()) {
+				cancel();
+			}
+		});
+
+		Executor target = (executor != null) ? executor : QueryExecutors.forDataSource(dataSource);
+		target.execute(() -> {
+			if (future.isDone()) {
+				return;
 			}
-		} catch (SQLException ignored) { /* ignored */ }
-		if (connection != null) {
 			try {
-				connection.close();
-			} catch (SQLException ignored) { /* ignored */ }
+				R result = task.get();
+				// cancelled meanwhile: nobody will close the result
+				if (!future.complete(result) && result instanceof AutoCloseable) {
+					((AutoCloseable) result).close();
+				}
+			} catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
+	// Abort the running statement (from any thread)
+	public void cancel() {
+		QueryExecution running = execution;
+		if (running != null) {
+			running.cancel();
+		}
+	}
+
+
+	private <T> void checkInstantiable(final Class<T> clazz) {
+		RowMapper.checkMappable(clazz);
+	}
+
+	// open connection, bind parameters and run the statement
+	private ResultSet execute() throws SQLException {
+		// applying given parameters: each distinct name is resolved once
+		String[] names = parsedQuery.getParameterNames();
+		QueryParameterApplier[] appliers = new QueryParameterApplier[names.length];
+		for (int i = 0; i < names.length; i++) {
+			appliers[i] = paramAppliersMap.get(names[i]);
+			if (appliers[i] == null) {
+				throw new RuntimeException(String.format("Missing value for parameter '%s'", names[i]));
+			}
+		}
+
+		execution = new QueryExecution(dataSource, parsedQuery);
+		return execution.open(fetchSize, appliers);
+	}
+
+	// Parsing Query Metadata for late binding on destination clazz
+	private <T> ResultSetHandler<T> classHandler(final ResultSet rs, final Class<T> clazz) throws SQLException {
+		return queryClassMapperCache.mapper(parsedQuery.getName(), clazz, columnMapping, rs.getMetaData());
+	}
+
+
+	// Immutable, thread safe handle of this statement, mapping and fetch size
+	public <T> CompiledQuery<T> compile(final Class<T> clazz) {
+		checkInstantiable(clazz);
+		return new CompiledQuery<>(dataSource, parsedQuery, clazz, null, columnMapping, fetchSize);
+	}
+
+	// handler must be thread safe: it is shared by all executions
+	public <T> CompiledQuery<T> compile(final ResultSetHandler<T> handler) {
+		if (handler == null) {
+			throw new RuntimeException("Unable to compile with a null ResultSetHandler");
 		}
+		return new CompiledQuery<>(dataSource, parsedQuery, null, handler, columnMapping, fetchSize);
+	}
+
+	public static <T> CompiledQuery<T> compile(DataSource dataSource, final String sql, final Class<T> clazz) {
+		return new Query(dataSource, sql).compile(clazz);
+	}
+
+
+	@Override
+	public void close() throws Exception {
+		QueryExecution running = execution;
+		if (running != null) {
+			execution = null;
+			running.close();
+		}
+	}
+
+	// failure of the running execution (counted once, open failures already are)
+	private void failed() {
+		QueryExecution running = execution;
+		if (running != null) {
+			running.failed();
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (Exception ignored) { /* ignored */ }
 	}
 
 	@Override
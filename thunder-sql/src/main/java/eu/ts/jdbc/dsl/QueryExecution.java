@@ -0,0 +1,191 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.FetchSizeAdvisor;
+import eu.ts.jdbc.dsl.mapping.ParameterBinder;
+import eu.ts.jdbc.dsl.mapping.QueryParameterApplier;
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+import eu.ts.jdbc.dsl.metrics.QueryMetrics;
+import eu.ts.jdbc.dsl.metrics.StatementMetrics;
+import eu.ts.jdbc.pool.StatementCache;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC resources of a single statement execution (connection, statement, cursor)
+ */
+final class QueryExecution implements AutoCloseable {
+
+	private final DataSource dataSource;
+	private final QueryParser statement;
+
+	private Connection connection = null;
+	private volatile PreparedStatement ps = null;
+	private ResultSet rs = null;
+	private boolean completed = false;
+	private boolean failed = false;
+	private boolean owned = true;
+
+	// timings (System.nanoTime) when metrics are enabled
+	private StatementMetrics metrics = null;
+	private long started = 0;
+	private long acquired = 0;
+	private long executed = 0;
+	private long firstRow = 0;
+
+	QueryExecution(DataSource dataSource, QueryParser statement) {
+		this.dataSource = dataSource;
+		this.statement = statement;
+	}
+
+
+	// parameters given as appliers indexed like QueryParser.getParameterNames()
+	ResultSet open(int fetchSize, QueryParameterApplier[] appliers) throws SQLException {
+		try {
+			prepare(fetchSize);
+			int[] plan = statement.getBindingPlan();
+			for (int i = 0; i < plan.length; i++) {
+				appliers[plan[i]].apply(ps, i + 1);
+			}
+			return execute();
+		} catch (SQLException | RuntimeException ex) {
+			failed();
+			throw ex;
+		}
+	}
+
+	// parameters given as values indexed like QueryParser.getParameterNames()
+	ResultSet open(int fetchSize, Object[] values) throws SQLException {
+		try {
+			prepare(fetchSize);
+			int[] plan = statement.getBindingPlan();
+			for (int i = 0; i < plan.length; i++) {
+				ParameterBinder.bind(ps, i + 1, values[plan[i]]);
+			}
+			return execute();
+		} catch (SQLException | RuntimeException ex) {
+			failed();
+			throw ex;
+		}
+	}
+
+	// explicit fetch size, or the learned one when 0
+	private void prepare(int fetchSize) throws SQLException {
+		metrics = QueryMetrics.forStatement(statement.getName(), statement.getRunnableSql());
+		if (metrics != null) {
+			started = System.nanoTime();
+		}
+		// connection of the current unit of work, if any, is borrowed and never closed here
+		Connection bound = UnitOfWork.connection(dataSource);
+		owned = (bound == null);
+		connection = owned ? dataSource.getConnection() : bound;
+		if (metrics != null) {
+			acquired = System.nanoTime();
+			metrics.getAcquire().record(acquired - started);
+		}
+		ps = StatementCache.prepare(dataSource, connection, statement.getName(), statement.getRunnableSql());
+		// 0 keeps the driver/DataSource default (0 would mean "whole result" on some drivers);
+		// cached statements get their prepared fetch size back on release
+		int rows = (fetchSize > 0) ? fetchSize : FetchSizeAdvisor.advise(statement.getName());
+		if (rows > 0) {
+			ps.setFetchSize(rows);
+		}
+	}
+
+	private ResultSet execute() throws SQLException {
+		rs = ps.executeQuery();
+		if (metrics != null) {
+			executed = System.nanoTime();
+			metrics.getExecute().record(executed - acquired);
+		}
+		if (FetchSizeAdvisor.needsRowWidth(statement.getName())) {
+			FetchSizeAdvisor.recordRowWidth(statement.getName(), rs.getMetaData());
+		}
+		return rs;
+	}
+
+	// cursor step timing the first row
+	boolean next() throws SQLException {
+		boolean hasRow = rs.next();
+		if (hasRow && metrics != null && firstRow == 0) {
+			firstRow = System.nanoTime();
+		}
+		return hasRow;
+	}
+
+	// whole cursor consumed: row count feeds the fetch size advisor and metrics
+	void completed(long rows) {
+		if (!completed && !failed) {
+			completed = true;
+			FetchSizeAdvisor.recordRows(statement.getName(), rows);
+			if (metrics != null) {
+				QueryMetrics.completed(metrics, started, executed, firstRow, System.nanoTime(), rows,
+						statement.getParameterNames());
+			}
+		}
+	}
+
+	// execute, cursor, mapping or consumer failure: counted once, never after completed
+	void failed() {
+		if (!completed && !failed) {
+			failed = true;
+			if (metrics != null) {
+				QueryMetrics.failed(metrics);
+			}
+		}
+	}
+
+
+	// Abort the running statement (from any thread)
+	void cancel() {
+		PreparedStatement running = ps;
+		if (running != null) {
+			try {
+				running.cancel();
+			} catch (SQLException ignored) { /* ignored */ }
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			if (rs != null && !rs.isClosed()) {
+				rs.close();
+			}
+		} catch (SQLException ignored) { /* ignored */ }
+		rs = null;
+		PreparedStatement running = ps;
+		if (running != null) {
+			// cleared before release: a cancel() must never hit a statement reused elsewhere
+			ps = null;
+			StatementCache.release(dataSource, connection, statement.getName(), running);
+		}
+		if (connection != null) {
+			if (owned) {
+				StatementCache.rollbackBeforeRelease(dataSource, connection);
+				try {
+					connection.close();
+				} catch (SQLException ignored) { /* ignored */ }
+			}
+			connection = null;
+		}
+	}
+}
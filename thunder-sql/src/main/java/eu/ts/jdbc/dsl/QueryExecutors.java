@@ -0,0 +1,80 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for asynchronous queries, one per DataSource.
+ * <p>
+ * Default executor threads are bounded by the pool maximumPoolSize: more threads would only wait
+ * for a connection. Any Executor can be registered instead (e.g. virtual threads on newer JVMs).
+ */
+public final class QueryExecutors {
+
+	private final static int DEFAULT_THREADS = 10;
+	private final static long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+	private final static Map<DataSource, Executor> executors = new ConcurrentHashMap<>();
+
+	// will not be instantiated
+	private QueryExecutors() {
+	}
+
+	public static void register(DataSource dataSource, Executor executor) {
+		executors.put(dataSource, executor);
+	}
+
+	public static Executor forDataSource(DataSource dataSource) {
+		return executors.computeIfAbsent(dataSource, QueryExecutors::defaultExecutor);
+	}
+
+	// connections the DataSource can hand out concurrently
+	public static int maximumConnections(DataSource dataSource) {
+		if (dataSource instanceof HikariDataSource) {
+			return ((HikariDataSource) dataSource).getMaximumPoolSize();
+		}
+		return DEFAULT_THREADS;
+	}
+
+	private static Executor defaultExecutor(DataSource dataSource) {
+		final int threads = maximumConnections(dataSource);
+		final String prefix = (dataSource instanceof HikariDataSource && ((HikariDataSource) dataSource).getPoolName() != null)
+				? ((HikariDataSource) dataSource).getPoolName() + "-query-"
+				: "query-";
+		final AtomicInteger counter = new AtomicInteger();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+				THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+		);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -0,0 +1,117 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import java.sql.ResultSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Lazy ResultSet cursor: every row is mapped only when requested by the consumer
+ *
+ * @param <T>
+ */
+class ResultSetIterator<T> implements Iterator<T>, AutoCloseable {
+
+	private final QueryExecution execution;
+	private final ResultSet rs;
+	private final ResultSetHandler<T> handler;
+	private final Runnable onClose;
+
+	private long rows = 0;
+
+	private boolean fetched = false;
+	private boolean hasRow = false;
+	private boolean closed = false;
+
+	ResultSetIterator(QueryExecution execution, ResultSet rs, ResultSetHandler<T> handler, Runnable onClose) {
+		this.execution = execution;
+		this.rs = rs;
+		this.handler = handler;
+		this.onClose = onClose;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (!fetched) {
+			try {
+				hasRow = execution.next();
+			} catch (Exception ex) {
+				execution.failed();
+				close();
+				throw new RuntimeException(ex);
+			}
+			fetched = true;
+			// release resources as soon as the cursor is exhausted
+			if (!hasRow) {
+				execution.completed(rows);
+				close();
+			}
+		}
+		return hasRow;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		fetched = false;
+		rows++;
+		try {
+			return handler.handle(rs);
+		} catch (Exception ex) {
+			execution.failed();
+			close();
+			throw new RuntimeException(ex);
+		}
+	}
+
+	// Stream source: a failing consumer (run inside tryAdvance) fails the execution too
+	Spliterator<T> spliterator() {
+		return new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				if (!hasNext()) {
+					return false;
+				}
+				T row = next();
+				try {
+					action.accept(row);
+				} catch (RuntimeException | Error ex) {
+					execution.failed();
+					close();
+					throw ex;
+				}
+				return true;
+			}
+		};
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			onClose.run();
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.RowCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read only, random access result keeping the first rows on heap and spilling the others to a temp file.
+ * <p>
+ * Spilled rows are stored in {@link RowCodec} format and decoded on each access through read only
+ * memory mapped segments. The temp file is deleted on close.
+ *
+ * @param <T>
+ */
+public final class SpillableList<T> extends AbstractList<T> implements RandomAccess, AutoCloseable {
+
+	// mapped segment size: rows never straddle two segments
+	private final static long SEGMENT_SIZE = 1L << 30;
+	private final static int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	private final int heapRows;
+	private final RowCodec<T> codec;
+	private final List<T> heap;
+
+	private Path file = null;
+	private FileChannel channel = null;
+	private ByteBuffer writeBuffer = null;
+	private long[] offsets = new long[0];
+	private int spilledRows = 0;
+	private long spilledBytes = 0;
+
+	private MappedByteBuffer[] segments = null;
+	private long[] segmentStarts = null;
+	private volatile boolean closed = false;
+
+	SpillableList(Class<T> clazz, int heapRows) {
+		this.heapRows = heapRows;
+		this.codec = RowCodec.of(clazz);
+		this.heap = new ArrayList<>(Math.min(heapRows, 1024));
+	}
+
+
+	// loading phase (single thread)
+	void append(T row) throws IOException {
+		if (heap.size() < heapRows) {
+			heap.add(row);
+			return;
+		}
+		if (channel == null) {
+			file = Files.createTempFile("thunder-spill-", ".rows");
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			offsets = new long[1024];
+			writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		}
+		if (spilledRows == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+
+		ByteBuffer encoded = codec.encode(row);
+		if (encoded.remaining() > SEGMENT_SIZE) {
+			throw new RuntimeException("Row too large to spill: " + encoded.remaining() + " bytes");
+		}
+		offsets[spilledRows++] = spilledBytes;
+		spilledBytes += encoded.remaining();
+		// rows are gathered in the write buffer: one write per 64KB, not per row
+		if (encoded.remaining() > writeBuffer.remaining()) {
+			flush();
+		}
+		if (encoded.remaining() > writeBuffer.capacity()) {
+			write(encoded);
+		} else {
+			writeBuffer.put(encoded);
+		}
+	}
+
+	private void flush() throws IOException {
+		writeBuffer.flip();
+		write(writeBuffer);
+		writeBuffer.clear();
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	// end of loading: spilled rows get mapped
+	void seal() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		flush();
+		writeBuffer = null;
+
+		List<Long> starts = new ArrayList<>();
+		starts.add(0L);
+		for (int i = 0; i < spilledRows; i++) {
+			long end = (i + 1 < spilledRows) ? offsets[i + 1] : spilledBytes;
+			if (end - starts.get(starts.size() - 1) > SEGMENT_SIZE) {
+				starts.add(offsets[i]);
+			}
+		}
+
+		segments = new MappedByteBuffer[starts.size()];
+		segmentStarts = new long[starts.size()];
+		for (int s = 0; s < segments.length; s++) {
+			long start = starts.get(s);
+			long end = (s + 1 < segments.length) ? starts.get(s + 1) : spilledBytes;
+			segmentStarts[s] = start;
+			segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		}
+	}
+
+
+	@Override
+	public T get(int index) {
+		if (index < heap.size()) {
+			return heap.get(index);
+		}
+		int row = index - heap.size();
+		if (row >= spilledRows) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		if (closed) {
+			throw new RuntimeException("Spilled result already closed");
+		}
+
+		long offset = offsets[row];
+		int s = Arrays.binarySearch(segmentStarts, offset);
+		s = (s < 0) ? -s - 2 : s;
+		// private view: concurrent readers do not share a position
+		ByteBuffer view = segments[s].duplicate();
+		view.position((int) (offset - segmentStarts[s]));
+		return codec.decode(view);
+	}
+
+	@Override
+	public int size() {
+		return heap.size() + spilledRows;
+	}
+
+	public boolean isSpilled() {
+		return spilledRows > 0;
+	}
+
+	public int getSpilledRows() {
+		return spilledRows;
+	}
+
+	public long getSpilledBytes() {
+		return spilledBytes;
+	}
+
+
+	// deletes the temp file: spilled rows are no longer readable
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		segments = null;
+		writeBuffer = null;
+		try {
+			if (channel != null) {
+				channel.close();
+			}
+			if (file != null) {
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException("Unable to delete spill file: " + file, ex);
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * One connection bound to the current thread for a DataSource: every Query, CompiledQuery and Batch run by
+ * this thread on the same DataSource reuses it (and its cached statements) until close.
+ * <pre>
+ * try (UnitOfWork uow = UnitOfWork.begin(ds).readOnly()) {
+ *     ...queries...
+ *     uow.commit();
+ * }
+ * </pre>
+ * Uncommitted work is rolled back on close. A begin on a DataSource already bound joins the outer unit:
+ * its commit is left to the outer one, its rollback marks the whole unit rollback only.
+ * Async and partitioned fetches run on other threads and keep borrowing their own connections.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+	private final static ThreadLocal<Map<DataSource, UnitOfWork>> bound = new ThreadLocal<>();
+
+	private final DataSource dataSource;
+	private final Connection connection;
+	private final UnitOfWork outer;
+
+	// original settings restored before returning the connection
+	private final boolean autoCommit;
+	private final boolean readOnly;
+	private final int isolation;
+
+	private boolean rollbackOnly = false;
+	private boolean completed = false;
+	private boolean closed = false;
+
+	private UnitOfWork(DataSource dataSource, Connection connection) throws SQLException {
+		this.dataSource = dataSource;
+		this.connection = connection;
+		this.outer = null;
+		this.autoCommit = connection.getAutoCommit();
+		this.readOnly = connection.isReadOnly();
+		this.isolation = connection.getTransactionIsolation();
+		if (autoCommit) {
+			connection.setAutoCommit(false);
+		}
+	}
+
+	private UnitOfWork(UnitOfWork outer) {
+		this.dataSource = outer.dataSource;
+		this.connection = outer.connection;
+		this.outer = outer;
+		this.autoCommit = false;
+		this.readOnly = false;
+		this.isolation = 0;
+	}
+
+
+	public static UnitOfWork begin(final DataSource dataSource) {
+		Map<DataSource, UnitOfWork> units = bound.get();
+		if (units == null) {
+			units = new HashMap<>();
+			bound.set(units);
+		}
+		UnitOfWork current = units.get(dataSource);
+		if (current != null) {
+			return new UnitOfWork(current);
+		}
+
+		Connection connection = null;
+		try {
+			connection = dataSource.getConnection();
+			UnitOfWork unit = new UnitOfWork(dataSource, connection);
+			units.put(dataSource, unit);
+			return unit;
+		} catch (SQLException ex) {
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException ignored) { /* ignored */ }
+			}
+			unbind(dataSource);
+			throw new RuntimeException("Unable to begin unit of work", ex);
+		}
+	}
+
+	// Commit on success, rollback on any exception
+	public static <T> T execute(final DataSource dataSource, final Supplier<T> work) {
+		try (UnitOfWork unit = begin(dataSource)) {
+			T result = work.get();
+			unit.commit();
+			return result;
+		}
+	}
+
+	// connection bound to this thread for the DataSource, null outside a unit of work
+	static Connection connection(final DataSource dataSource) {
+		Map<DataSource, UnitOfWork> units = bound.get();
+		if (units == null) {
+			return null;
+		}
+		UnitOfWork unit = units.get(dataSource);
+		return (unit == null) ? null : unit.connection;
+	}
+
+
+	// Read only hint (snapshot reads, replica routing): only before the first statement
+	public UnitOfWork readOnly() {
+		checkOwner("read only hint");
+		try {
+			connection.setReadOnly(true);
+		} catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		}
+		return this;
+	}
+
+	// Connection.TRANSACTION_* level: only before the first statement
+	public UnitOfWork isolation(final int level) {
+		checkOwner("isolation level");
+		try {
+			connection.setTransactionIsolation(level);
+		} catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		}
+		return this;
+	}
+
+	public void commit() {
+		checkOpen();
+		if (outer != null) {
+			// outer unit decides
+			completed = true;
+			return;
+		}
+		if (rollbackOnly) {
+			throw new RuntimeException("Unit of work marked rollback only");
+		}
+		try {
+			connection.commit();
+			completed = true;
+		} catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public void rollback() {
+		checkOpen();
+		if (outer != null) {
+			outer.rollbackOnly = true;
+			completed = true;
+			return;
+		}
+		try {
+			connection.rollback();
+			completed = true;
+		} catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public boolean isRollbackOnly() {
+		return (outer != null) ? outer.rollbackOnly : rollbackOnly;
+	}
+
+	public Connection getConnection() {
+		return connection;
+	}
+
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		try {
+			if (!completed) {
+				rollback();
+			}
+		} finally {
+			// a failed rollback (e.g. broken connection) still gives the connection back
+			closed = true;
+			if (outer == null) {
+				release();
+			}
+		}
+	}
+
+	private void release() {
+		unbind(dataSource);
+		try {
+			// restored settings: the pool hands out the connection again
+			if (connection.isReadOnly() != readOnly) {
+				connection.setReadOnly(readOnly);
+			}
+			if (connection.getTransactionIsolation() != isolation) {
+				connection.setTransactionIsolation(isolation);
+			}
+			if (autoCommit) {
+				connection.setAutoCommit(true);
+			}
+		} catch (SQLException ignored) {
+			/* ignored: the pool resets or evicts the connection */
+		} finally {
+			try {
+				connection.close();
+			} catch (SQLException ignored) { /* ignored */ }
+		}
+	}
+
+	// no thread local left behind on pooled threads
+	private static void unbind(DataSource dataSource) {
+		Map<DataSource, UnitOfWork> units = bound.get();
+		if (units != null) {
+			units.remove(dataSource);
+			if (units.isEmpty()) {
+				bound.remove();
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new RuntimeException("Unit of work already closed");
+		}
+	}
+
+	private void checkOwner(String setting) {
+		checkOpen();
+		if (outer != null) {
+			throw new RuntimeException("Unable to change " + setting + " of a joined unit of work");
+		}
+	}
+}
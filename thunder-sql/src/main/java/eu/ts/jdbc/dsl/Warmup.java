@@ -0,0 +1,261 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import eu.ts.jdbc.dsl.mapping.FetchSizeAdvisor;
+import eu.ts.jdbc.dsl.mapping.QueryCache;
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+import eu.ts.jdbc.pool.StatementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Startup warm-up of named statements before traffic: first requests should not pay parsing, mapper
+ * building, statement preparation and pool connection creation.
+ * <p>
+ * Statements are registered in QueryCache, described through PreparedStatement.getMetaData() (never executed),
+ * their declared mappers prebuilt, and an Hikari pool filled up to maximumPoolSize. Named SQL resources hold
+ * statements introduced by a {@code -- name: <name>} line:
+ * <pre>
+ * -- name: orders.byCustomer
+ * select id, total from orders where customer = :customer
+ * </pre>
+ * Warmed statements are run by name, {@code Query.select(ds, QueryCache.getNamedStatement("orders.byCustomer"))},
+ * or by the same SQL text (comment lines and trailing ';' removed): both resolve to the named statement, whose
+ * cached statements, mappers and fetch size statistics are the warmed ones.
+ */
+public class Warmup {
+	private final static Logger log = LoggerFactory.getLogger(Warmup.class);
+
+	private final static String NAME_MARKER = "-- name:";
+
+	private final DataSource dataSource;
+	private final Map<String, String> statements = new LinkedHashMap<>();
+	private final Map<String, List<Mapping>> mappings = new HashMap<>();
+	private boolean fillPool = true;
+
+	private final static class Mapping {
+		private final Class<?> clazz;
+		private final Map<String, String> columnMapping;
+
+		private Mapping(Class<?> clazz, Map<String, String> columnMapping) {
+			this.clazz = clazz;
+			this.columnMapping = columnMapping;
+		}
+	}
+
+	private Warmup(DataSource dataSource) {
+		if (dataSource == null) {
+			throw new RuntimeException("Unable proceed without a DataSource");
+		}
+		this.dataSource = dataSource;
+	}
+
+	public static Warmup of(DataSource dataSource) {
+		return new Warmup(dataSource);
+	}
+
+
+	// named statements of a classpath resource
+	public Warmup statements(final String resource) {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		InputStream in = ((loader != null) ? loader : Warmup.class.getClassLoader()).getResourceAsStream(resource);
+		if (in == null) {
+			throw new RuntimeException("Warmup resource not found: " + resource);
+		}
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			parse(resource, reader);
+		} catch (IOException ex) {
+			throw new RuntimeException("Unable to read warmup resource: " + resource, ex);
+		}
+		return this;
+	}
+
+	public Warmup statement(final String name, final String sql) {
+		if (statements.putIfAbsent(name, sql) != null) {
+			throw new RuntimeException("Duplicate warmup statement: " + name);
+		}
+		return this;
+	}
+
+	// mapper prebuilt for a named statement, same column mapping of the Query fetching it
+	public Warmup mapper(final String name, final Class<?> clazz) {
+		return mapper(name, clazz, new HashMap<>());
+	}
+
+	public Warmup mapper(final String name, final Class<?> clazz, final Map<String, String> columnMapping) {
+		Map<String, String> mapping = new HashMap<>();
+		for (Map.Entry<String, String> entry : columnMapping.entrySet()) {
+			mapping.put(entry.getKey().toLowerCase(), entry.getValue().toLowerCase());
+		}
+		mappings.computeIfAbsent(name, key -> new ArrayList<>()).add(new Mapping(clazz, mapping));
+		return this;
+	}
+
+	// open the pool up to maximumPoolSize (Hikari only), default true
+	public Warmup fillPool(final boolean fillPool) {
+		this.fillPool = fillPool;
+		return this;
+	}
+
+
+	public WarmupReport run() {
+		WarmupReport report = new WarmupReport();
+
+		long start = System.nanoTime();
+		List<QueryParser> parsed = new ArrayList<>();
+		for (Map.Entry<String, String> entry : statements.entrySet()) {
+			parsed.add(QueryCache.registerNamedStatement(entry.getKey(), entry.getValue()));
+		}
+		for (String name : mappings.keySet()) {
+			if (!statements.containsKey(name)) {
+				report.failed(name + ": mapper declared for an unknown statement");
+			}
+		}
+		report.loaded(parsed.size(), System.nanoTime() - start);
+
+		start = System.nanoTime();
+		List<Connection> connections = new ArrayList<>();
+		try {
+			int target = (fillPool && dataSource instanceof HikariDataSource)
+					? ((HikariDataSource) dataSource).getMaximumPoolSize() : 1;
+			try {
+				while (connections.size() < target) {
+					connections.add(dataSource.getConnection());
+				}
+			} catch (SQLException ex) {
+				report.failed("pool: " + connections.size() + " of " + target + " connections opened: " + ex.getMessage());
+			}
+			report.pooled(connections.size(), System.nanoTime() - start);
+
+			start = System.nanoTime();
+			prepare(parsed, connections, report);
+		} finally {
+			for (Connection connection : connections) {
+				StatementCache.rollbackBeforeRelease(dataSource, connection);
+				try {
+					connection.close();
+				} catch (SQLException ignored) { /* back to the pool anyway */ }
+			}
+		}
+
+		log.info("Warmup completed: {}", report);
+		for (String failure : report.getFailures()) {
+			log.warn("Warmup failure: {}", failure);
+		}
+		return report;
+	}
+
+	// statements prepared on every pooled connection when cached there, described on the first one only
+	private void prepare(List<QueryParser> parsed, List<Connection> connections, WarmupReport report) {
+		long start = System.nanoTime();
+		int described = 0;
+		int mappers = 0;
+		int prepareOn = StatementCache.isEnabled(dataSource) ? connections.size() : Math.min(1, connections.size());
+
+		for (QueryParser statement : parsed) {
+			String name = statement.getName();
+			for (int i = 0; i < prepareOn; i++) {
+				Connection connection = connections.get(i);
+				PreparedStatement ps = null;
+				try {
+					ps = StatementCache.prepare(dataSource, connection, name, statement.getRunnableSql());
+					if (i > 0) {
+						continue;
+					}
+					ResultSetMetaData rsmd = ps.getMetaData();
+					if (rsmd == null) {
+						report.failed(name + ": no result metadata before execution");
+						continue;
+					}
+					described++;
+					if (FetchSizeAdvisor.needsRowWidth(name)) {
+						FetchSizeAdvisor.recordRowWidth(name, rsmd);
+					}
+					for (Mapping mapping : mappings.getOrDefault(name, new ArrayList<>())) {
+						try {
+							Query.queryClassMapperCache.mapper(name, mapping.clazz, mapping.columnMapping, rsmd);
+							mappers++;
+						} catch (RuntimeException ex) {
+							report.failed(name + ": mapper for " + mapping.clazz.getName() + ": " + ex.getMessage());
+						}
+					}
+				} catch (SQLException ex) {
+					report.failed(name + ": " + ex.getMessage());
+					break;
+				} finally {
+					if (ps != null) {
+						StatementCache.release(dataSource, connection, name, ps);
+					}
+				}
+			}
+		}
+		report.prepared(described, mappers, System.nanoTime() - start);
+	}
+
+	// "-- name: x" starts a statement; other comment lines are dropped, a trailing ';' is removed
+	private void parse(String resource, BufferedReader reader) throws IOException {
+		String name = null;
+		StringBuilder sql = new StringBuilder();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String trimmed = line.trim();
+			if (trimmed.startsWith(NAME_MARKER)) {
+				if (name != null) {
+					add(resource, name, sql);
+				}
+				name = trimmed.substring(NAME_MARKER.length()).trim();
+				sql.setLength(0);
+			} else if (!trimmed.isEmpty() && !trimmed.startsWith("--")) {
+				if (name == null) {
+					throw new RuntimeException("Warmup resource " + resource + ": SQL before the first '" + NAME_MARKER + "' line");
+				}
+				sql.append((sql.length() > 0) ? "\n" : "").append(line);
+			}
+		}
+		if (name != null) {
+			add(resource, name, sql);
+		}
+	}
+
+	private void add(String resource, String name, StringBuilder sql) {
+		String text = sql.toString().trim();
+		if (text.endsWith(";")) {
+			text = text.substring(0, text.length() - 1).trim();
+		}
+		if (name.isEmpty() || text.isEmpty()) {
+			throw new RuntimeException("Warmup resource " + resource + ": empty statement name or SQL ('" + name + "')");
+		}
+		statement(name, text);
+	}
+}
@@ -0,0 +1,81 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link Warmup}: what was prepared and how long each phase took
+ */
+public class WarmupReport {
+
+	@Getter
+	private int statements = 0;
+	@Getter
+	private int described = 0;
+	@Getter
+	private int mappers = 0;
+	@Getter
+	private int connections = 0;
+	@Getter
+	private Duration loadTime = Duration.ZERO;
+	@Getter
+	private Duration poolTime = Duration.ZERO;
+	@Getter
+	private Duration prepareTime = Duration.ZERO;
+	private final List<String> failures = new ArrayList<>();
+
+	void loaded(int statements, long nanos) {
+		this.statements = statements;
+		this.loadTime = Duration.ofNanos(nanos);
+	}
+
+	void pooled(int connections, long nanos) {
+		this.connections = connections;
+		this.poolTime = Duration.ofNanos(nanos);
+	}
+
+	void prepared(int described, int mappers, long nanos) {
+		this.described = described;
+		this.mappers = mappers;
+		this.prepareTime = Duration.ofNanos(nanos);
+	}
+
+	void failed(String failure) {
+		failures.add(failure);
+	}
+
+	public Duration getTotalTime() {
+		return loadTime.plus(poolTime).plus(prepareTime);
+	}
+
+	public List<String> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("WarmupReport[statements=%d, described=%d, mappers=%d, connections=%d, "
+						+ "load=%dms, pool=%dms, prepare=%dms, total=%dms, failures=%d]",
+				statements, described, mappers, connections, loadTime.toMillis(), poolTime.toMillis(),
+				prepareTime.toMillis(), getTotalTime().toMillis(), failures.size());
+	}
+}
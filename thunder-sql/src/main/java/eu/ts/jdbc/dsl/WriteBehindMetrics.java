@@ -0,0 +1,124 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Queue depth, batch sizes and flush timings (nanoseconds) of a {@link WriteBehindQueue}
+ */
+public final class WriteBehindMetrics {
+
+	private final IntSupplier depth;
+	private final AtomicLong maxDepth = new AtomicLong();
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final LatencyHistogram batchSize = new LatencyHistogram();
+	private final LatencyHistogram flushTime = new LatencyHistogram();
+	private volatile int inFlight = 0;
+
+	WriteBehindMetrics(IntSupplier depth) {
+		this.depth = depth;
+	}
+
+	// rows waiting in the queue now
+	public int getDepth() {
+		return depth.getAsInt();
+	}
+
+	// rows taken from the queue by the batch being filled or written
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	// deepest queue seen at a flush (at most the queue capacity)
+	public long getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	public long getEnqueued() {
+		return enqueued.get();
+	}
+
+	// rows refused by offer() on a full queue
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	public long getWritten() {
+		return written.get();
+	}
+
+	// rows of failed batches (handed to the error handler)
+	public long getFailed() {
+		return failed.get();
+	}
+
+	// rows per JDBC batch
+	public LatencyHistogram getBatchSize() {
+		return batchSize;
+	}
+
+	// connection borrow, executeBatch and commit
+	public LatencyHistogram getFlushTime() {
+		return flushTime;
+	}
+
+	void enqueued() {
+		enqueued.incrementAndGet();
+	}
+
+	void rejected() {
+		rejected.incrementAndGet();
+	}
+
+	void inFlight(int rows) {
+		inFlight = rows;
+	}
+
+	void flushed(int depth, int rows, boolean success, long nanos) {
+		inFlight = 0;
+		maxDepth.accumulateAndGet(depth, Math::max);
+		(success ? written : failed).addAndGet(rows);
+		batchSize.record(rows);
+		flushTime.record(nanos);
+	}
+
+	public void reset() {
+		maxDepth.set(0);
+		enqueued.set(0);
+		rejected.set(0);
+		written.set(0);
+		failed.set(0);
+		batchSize.reset();
+		flushTime.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("WriteBehindMetrics[depth=%d, maxDepth=%d, inFlight=%d, enqueued=%d, rejected=%d, written=%d, failed=%d, " +
+						"flushes=%d, batchMean=%.1f, flushP99=%dus]",
+				getDepth(), maxDepth.get(), inFlight, enqueued.get(), rejected.get(), written.get(), failed.get(),
+				flushTime.getCount(), batchSize.getMean(),
+				TimeUnit.NANOSECONDS.toMicros(flushTime.getPercentile(0.99)));
+	}
+}
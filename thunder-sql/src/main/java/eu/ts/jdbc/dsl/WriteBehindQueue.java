@@ -0,0 +1,378 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.QueryCache;
+import eu.ts.jdbc.dsl.mapping.QueryParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Asynchronous write-behind of single row inserts/updates: callers enqueue parameter maps or POJOs, a background
+ * thread drains them into JDBC batches of batchSize rows or whatever arrived within flushInterval.
+ * <p>
+ * Batches run on a single pooled connection, held while rows keep coming and given back when the queue goes idle,
+ * and are committed per batch (when the connection is not in autoCommit mode). A full queue blocks enqueue()
+ * (backpressure) or makes offer() fail. close(), also run by a shutdown hook, writes every accepted row before
+ * returning. Failed batches are not retried: they are handed to the error handler (logged by default).
+ */
+public class WriteBehindQueue implements AutoCloseable {
+	private final static Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+	private final static int DEFAULT_CAPACITY = 10_000;
+	private final static int DEFAULT_BATCH_SIZE = 500;
+	private final static Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(200);
+
+	private final DataSource dataSource;
+	private final Batch batch;
+	private final QueryParser statement;
+
+	private int capacity = DEFAULT_CAPACITY;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private long flushIntervalNanos = DEFAULT_FLUSH_INTERVAL.toNanos();
+	private BiConsumer<List<Object>, Exception> errorHandler = (rows, ex) ->
+			log.error("Write-behind batch of {} rows failed", rows.size(), ex);
+
+	private BlockingQueue<Object> queue;
+	private WriteBehindMetrics metrics;
+	private volatile Thread drainer;
+	private Thread shutdownHook;
+	private volatile boolean closing = false;
+	private volatile boolean flushRequested = false;
+	// enqueue calls past the closing check: the drainer waits for them before stopping
+	private final AtomicInteger producers = new AtomicInteger();
+
+	// accepted vs written or failed rows, flush() waits on progress
+	private final Object progress = new Object();
+	private long accepted = 0;
+	private long processed = 0;
+
+	// drainer thread only
+	private Connection connection;
+
+
+	private WriteBehindQueue(DataSource dataSource, QueryParser statement) {
+		if (dataSource == null) {
+			throw new RuntimeException("Unable proceed without a DataSource");
+		}
+		this.dataSource = dataSource;
+		this.statement = statement;
+		this.batch = Batch.open(dataSource, statement);
+	}
+
+	public static WriteBehindQueue open(DataSource dataSource, final String sql) {
+		return new WriteBehindQueue(dataSource, QueryCache.registerSqlStatement(sql));
+	}
+
+	// named insert (e.g. registered by Warmup)
+	public static WriteBehindQueue open(DataSource dataSource, final QueryParser statement) {
+		return new WriteBehindQueue(dataSource, statement);
+	}
+
+
+	public WriteBehindQueue capacity(final int rows) {
+		checkNotStarted();
+		if (rows <= 0) {
+			throw new RuntimeException("Invalid write-behind capacity: " + rows);
+		}
+		this.capacity = rows;
+		return this;
+	}
+
+	public WriteBehindQueue batchSize(final int rows) {
+		checkNotStarted();
+		if (rows <= 0) {
+			throw new RuntimeException("Invalid write-behind batch size: " + rows);
+		}
+		this.batchSize = rows;
+		return this;
+	}
+
+	// longest wait for a batch to fill up
+	public WriteBehindQueue flushInterval(final Duration interval) {
+		checkNotStarted();
+		if (interval == null || interval.isNegative() || interval.isZero()) {
+			throw new RuntimeException("Invalid write-behind flush interval: " + interval);
+		}
+		this.flushIntervalNanos = interval.toNanos();
+		return this;
+	}
+
+	// bean property used for a named parameter (default: same name, case insensitive)
+	public WriteBehindQueue mapParameter(final String parameterName, final String propertyName) {
+		checkNotStarted();
+		batch.mapParameter(parameterName, propertyName);
+		return this;
+	}
+
+	// rows of a failed batch (already rolled back) and the cause
+	public WriteBehindQueue onError(final BiConsumer<List<Object>, Exception> handler) {
+		checkNotStarted();
+		this.errorHandler = handler;
+		return this;
+	}
+
+	public synchronized WriteBehindQueue start() {
+		checkNotStarted();
+		queue = new ArrayBlockingQueue<>(capacity);
+		metrics = new WriteBehindMetrics(queue::size);
+		batch.chunkSize(batchSize);
+
+		drainer = new Thread(this::drain, "write-behind-" + statement.getName());
+		drainer.setDaemon(true);
+		shutdownHook = new Thread(this::close, "write-behind-shutdown-" + statement.getName());
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+		drainer.start();
+		return this;
+	}
+
+
+	// blocks while the queue is full
+	public void enqueue(final Object row) {
+		checkOpen(row);
+		reserve();
+		boolean added = false;
+		try {
+			queue.put(row);
+			added = true;
+			metrics.enqueued();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for write-behind queue space", ex);
+		} finally {
+			if (!added) {
+				unreserve();
+			}
+			producers.decrementAndGet();
+		}
+	}
+
+	// false when the queue is still full after the timeout
+	public boolean offer(final Object row, final Duration timeout) {
+		checkOpen(row);
+		reserve();
+		boolean added = false;
+		try {
+			added = queue.offer(row, timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (added) {
+				metrics.enqueued();
+			} else {
+				unreserve();
+				metrics.rejected();
+			}
+			producers.decrementAndGet();
+		}
+		return added;
+	}
+
+	// waits until every row accepted before this call has been written (or failed)
+	public void flush() {
+		long target;
+		synchronized (progress) {
+			target = accepted;
+		}
+		flushRequested = true;
+		awaitProcessed(target);
+	}
+
+	// stop accepting rows, write the accepted ones and stop the drainer
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (drainer == null || closing) {
+				return;
+			}
+			closing = true;
+		}
+		try {
+			drainer.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while closing write-behind queue '{}': {} rows pending",
+					statement.getName(), queue.size());
+		}
+		if (Thread.currentThread() != shutdownHook) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException ignored) { /* JVM already shutting down */ }
+		}
+	}
+
+	public WriteBehindMetrics getMetrics() {
+		return metrics;
+	}
+
+	public boolean isClosed() {
+		return closing;
+	}
+
+
+	// drainer loop: a batch is written when full, when the flush interval expires or when asked to
+	private void drain() {
+		List<Object> rows = new ArrayList<>(batchSize);
+		while (!closing || !queue.isEmpty() || producers.get() > 0) {
+			try {
+				Object first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+				if (first == null) {
+					// idle: give the connection back to the pool
+					releaseConnection();
+					continue;
+				}
+				rows.add(first);
+				long deadline = System.nanoTime() + flushIntervalNanos;
+				while (rows.size() < batchSize) {
+					queue.drainTo(rows, batchSize - rows.size());
+					metrics.inFlight(rows.size());
+					long wait = deadline - System.nanoTime();
+					if (rows.size() >= batchSize || wait <= 0 || closing || flushRequested) {
+						break;
+					}
+					Object next = queue.poll(wait, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					rows.add(next);
+					metrics.inFlight(rows.size());
+				}
+			} catch (InterruptedException ex) {
+				// only close() may stop the drainer: accepted rows must be written
+				log.warn("Write-behind drainer of '{}' interrupted: ignored", statement.getName());
+			}
+			if (!rows.isEmpty()) {
+				write(rows);
+				rows.clear();
+			}
+			if (queue.isEmpty()) {
+				flushRequested = false;
+			}
+		}
+		releaseConnection();
+	}
+
+	private void write(List<Object> rows) {
+		// queued rows only: the batch rows are reported as in flight
+		int depth = queue.size();
+		metrics.inFlight(rows.size());
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			if (connection == null) {
+				connection = dataSource.getConnection();
+			}
+			batch.execute(connection, rows);
+			success = true;
+		} catch (Exception ex) {
+			discardBrokenConnection();
+			try {
+				errorHandler.accept(new ArrayList<>(rows), ex);
+			} catch (RuntimeException handlerEx) {
+				log.error("Write-behind error handler failed", handlerEx);
+			}
+		}
+		metrics.flushed(depth, rows.size(), success, System.nanoTime() - start);
+		synchronized (progress) {
+			processed += rows.size();
+			progress.notifyAll();
+		}
+	}
+
+	private void discardBrokenConnection() {
+		try {
+			if (connection != null && !connection.isValid(1)) {
+				releaseConnection();
+			}
+		} catch (SQLException ex) {
+			releaseConnection();
+		}
+	}
+
+	private void releaseConnection() {
+		if (connection != null) {
+			try {
+				connection.close();
+			} catch (SQLException ignored) { /* ignored */ }
+			connection = null;
+		}
+	}
+
+	// a row is counted before it is queued, so the drainer never processes more rows than accepted
+	private void reserve() {
+		synchronized (progress) {
+			accepted++;
+		}
+	}
+
+	// row not queued after all
+	private void unreserve() {
+		synchronized (progress) {
+			accepted--;
+			progress.notifyAll();
+		}
+	}
+
+	// a flush target may include rows withdrawn meanwhile
+	private void awaitProcessed(long target) {
+		synchronized (progress) {
+			while (processed < Math.min(target, accepted)) {
+				if (!drainer.isAlive()) {
+					throw new RuntimeException("Write-behind drainer stopped with rows pending");
+				}
+				try {
+					progress.wait(flushIntervalNanos / 1_000_000 + 1);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while flushing write-behind queue", ex);
+				}
+			}
+		}
+	}
+
+	private void checkNotStarted() {
+		if (drainer != null) {
+			throw new RuntimeException("Write-behind queue already started");
+		}
+	}
+
+	// on success the caller is counted in producers until its row is queued
+	private void checkOpen(Object row) {
+		if (row == null) {
+			throw new RuntimeException("Unable to enqueue a null row");
+		}
+		if (drainer == null) {
+			throw new RuntimeException("Write-behind queue not started");
+		}
+		producers.incrementAndGet();
+		if (closing) {
+			producers.decrementAndGet();
+			throw new RuntimeException("Write-behind queue closed");
+		}
+	}
+}
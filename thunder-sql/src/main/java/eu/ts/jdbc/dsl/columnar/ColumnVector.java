@@ -0,0 +1,88 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Growable column of a {@link ColumnarResult} with its null bitmap
+ */
+public abstract class ColumnVector {
+
+	protected final static int INITIAL_CAPACITY = 1024;
+
+	private final String name;
+	protected int size = 0;
+	private long[] nulls = null;
+
+	protected ColumnVector(String name) {
+		this.name = name;
+	}
+
+	// append current row value of the given column
+	abstract void read(ResultSet rs, int col) throws SQLException;
+
+	// release unused capacity once the fetch is complete
+	abstract void trim();
+
+	public String getName() {
+		return name;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public boolean isNull(int row) {
+		checkRow(row);
+		return nulls != null && (row >>> 6) < nulls.length && (nulls[row >>> 6] & (1L << row)) != 0;
+	}
+
+	public boolean hasNulls() {
+		return nulls != null;
+	}
+
+	// bitmap word i holds rows [i*64, i*64+63]; null when the column has no null values
+	public long[] getNullBitmap() {
+		return nulls;
+	}
+
+	protected void markNull(int row) {
+		int word = row >>> 6;
+		if (nulls == null) {
+			nulls = new long[Math.max(word + 1, INITIAL_CAPACITY >>> 6)];
+		} else if (word >= nulls.length) {
+			nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+		}
+		nulls[word] |= 1L << row;
+	}
+
+	protected void checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+		}
+	}
+
+	protected static int grow(int capacity) {
+		int newCapacity = capacity + (capacity >> 1) + 1;
+		if (newCapacity < 0) {
+			throw new OutOfMemoryError("Column vector too large");
+		}
+		return newCapacity;
+	}
+}
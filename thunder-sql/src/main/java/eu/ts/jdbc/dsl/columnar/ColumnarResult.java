@@ -0,0 +1,137 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.columnar;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column oriented query result: values go straight from the ResultSet into primitive vectors,
+ * without row objects or boxing.
+ */
+public class ColumnarResult {
+
+	private final ColumnVector[] columns;
+	private final Map<String, ColumnVector> byName = new HashMap<>();
+	private int rowCount = 0;
+
+	private ColumnarResult(ColumnVector[] columns) {
+		this.columns = columns;
+		for (ColumnVector column : columns) {
+			byName.put(column.getName().toLowerCase(), column);
+		}
+	}
+
+	// reads all remaining rows; numeric vectors use direct buffers when offHeap is set
+	public static ColumnarResult read(ResultSet rs, boolean offHeap) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		ColumnVector[] columns = new ColumnVector[rsmd.getColumnCount()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = vectorFor(rsmd, i + 1, offHeap);
+		}
+
+		ColumnarResult result = new ColumnarResult(columns);
+		while (rs.next()) {
+			for (int i = 0; i < columns.length; i++) {
+				columns[i].read(rs, i + 1);
+			}
+			result.rowCount++;
+		}
+		for (ColumnVector column : columns) {
+			column.trim();
+		}
+		return result;
+	}
+
+	private static ColumnVector vectorFor(ResultSetMetaData rsmd, int col, boolean offHeap) throws SQLException {
+		String name = rsmd.getColumnLabel(col);
+		switch (rsmd.getColumnType(col)) {
+			case Types.BIT:
+			case Types.BOOLEAN:
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return new IntVector(name, offHeap);
+			case Types.BIGINT:
+				return new LongVector(name, offHeap);
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return new DoubleVector(name, offHeap);
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				int precision = rsmd.getPrecision(col);
+				// Oracle NUMBER without precision reports 0 / -127
+				if (rsmd.getScale(col) == 0 && precision > 0) {
+					if (precision <= 9) {
+						return new IntVector(name, offHeap);
+					}
+					if (precision <= 18) {
+						return new LongVector(name, offHeap);
+					}
+				}
+				return new DoubleVector(name, offHeap);
+			case Types.DATE:
+			case Types.TIME:
+			case Types.TIMESTAMP:
+			case Types.TIMESTAMP_WITH_TIMEZONE:
+				return new TimestampVector(name, offHeap);
+			default:
+				return new StringVector(name);
+		}
+	}
+
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public ColumnVector column(int index) {
+		return columns[index];
+	}
+
+	public ColumnVector column(String name) {
+		ColumnVector column = byName.get(name.toLowerCase());
+		if (column == null) {
+			throw new IllegalArgumentException("Unknown column: " + name);
+		}
+		return column;
+	}
+
+	public IntVector intColumn(String name) {
+		return (IntVector) column(name);
+	}
+
+	public LongVector longColumn(String name) {
+		return (LongVector) column(name);
+	}
+
+	public DoubleVector doubleColumn(String name) {
+		return (DoubleVector) column(name);
+	}
+
+	public StringVector stringColumn(String name) {
+		return (StringVector) column(name);
+	}
+}
@@ -0,0 +1,106 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.columnar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Primitive double column, on heap array or off-heap direct buffer
+ */
+public class DoubleVector extends ColumnVector {
+
+	private double[] data;
+	private DoubleBuffer offHeap;
+
+	DoubleVector(String name, boolean direct) {
+		super(name);
+		if (direct) {
+			offHeap = allocate(INITIAL_CAPACITY);
+		} else {
+			data = new double[INITIAL_CAPACITY];
+		}
+	}
+
+	@Override
+	void read(ResultSet rs, int col) throws SQLException {
+		double value = rs.getDouble(col);
+		if (rs.wasNull()) {
+			markNull(size);
+		}
+		add(value);
+	}
+
+	void add(double value) {
+		if (data != null) {
+			if (size == data.length) {
+				data = Arrays.copyOf(data, grow(data.length));
+			}
+			data[size++] = value;
+		} else {
+			if (size == offHeap.capacity()) {
+				DoubleBuffer bigger = allocate(grow(size));
+				offHeap.clear();
+				bigger.put(offHeap);
+				offHeap = bigger;
+			}
+			offHeap.put(size++, value);
+		}
+	}
+
+	@Override
+	void trim() {
+		if (data != null && data.length > size) {
+			data = Arrays.copyOf(data, size);
+		}
+	}
+
+	public double getDouble(int row) {
+		checkRow(row);
+		return (data != null) ? data[row] : offHeap.get(row);
+	}
+
+	public boolean isOffHeap() {
+		return data == null;
+	}
+
+	// zero copy heap backing array (valid up to getSize())
+	public double[] array() {
+		if (data == null) {
+			throw new UnsupportedOperationException("Off-heap column has no backing array");
+		}
+		return data;
+	}
+
+	// zero copy read only view of the values
+	public DoubleBuffer buffer() {
+		if (data != null) {
+			return DoubleBuffer.wrap(data, 0, size).asReadOnlyBuffer();
+		}
+		DoubleBuffer view = offHeap.asReadOnlyBuffer();
+		view.clear();
+		view.limit(size);
+		return view;
+	}
+
+	private static DoubleBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+	}
+}
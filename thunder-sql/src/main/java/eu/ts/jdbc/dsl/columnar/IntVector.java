@@ -0,0 +1,106 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.columnar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Primitive int column, on heap array or off-heap direct buffer
+ */
+public class IntVector extends ColumnVector {
+
+	private int[] data;
+	private IntBuffer offHeap;
+
+	IntVector(String name, boolean direct) {
+		super(name);
+		if (direct) {
+			offHeap = allocate(INITIAL_CAPACITY);
+		} else {
+			data = new int[INITIAL_CAPACITY];
+		}
+	}
+
+	@Override
+	void read(ResultSet rs, int col) throws SQLException {
+		int value = rs.getInt(col);
+		if (rs.wasNull()) {
+			markNull(size);
+		}
+		add(value);
+	}
+
+	void add(int value) {
+		if (data != null) {
+			if (size == data.length) {
+				data = Arrays.copyOf(data, grow(data.length));
+			}
+			data[size++] = value;
+		} else {
+			if (size == offHeap.capacity()) {
+				IntBuffer bigger = allocate(grow(size));
+				offHeap.clear();
+				bigger.put(offHeap);
+				offHeap = bigger;
+			}
+			offHeap.put(size++, value);
+		}
+	}
+
+	@Override
+	void trim() {
+		if (data != null && data.length > size) {
+			data = Arrays.copyOf(data, size);
+		}
+	}
+
+	public int getInt(int row) {
+		checkRow(row);
+		return (data != null) ? data[row] : offHeap.get(row);
+	}
+
+	public boolean isOffHeap() {
+		return data == null;
+	}
+
+	// zero copy heap backing array (valid up to getSize())
+	public int[] array() {
+		if (data == null) {
+			throw new UnsupportedOperationException("Off-heap column has no backing array");
+		}
+		return data;
+	}
+
+	// zero copy read only view of the values
+	public IntBuffer buffer() {
+		if (data != null) {
+			return IntBuffer.wrap(data, 0, size).asReadOnlyBuffer();
+		}
+		IntBuffer view = offHeap.asReadOnlyBuffer();
+		view.clear();
+		view.limit(size);
+		return view;
+	}
+
+	private static IntBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+}
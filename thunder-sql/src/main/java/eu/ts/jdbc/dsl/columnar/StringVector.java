@@ -0,0 +1,100 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoded String column: each row holds an int code of a distinct value
+ */
+public class StringVector extends ColumnVector {
+
+	private final static int NULL_CODE = -1;
+
+	private int[] codes = new int[INITIAL_CAPACITY];
+	private String[] dictionary = new String[64];
+	private int dictionarySize = 0;
+	private Map<String, Integer> encoder = new HashMap<>();
+
+	StringVector(String name) {
+		super(name);
+	}
+
+	@Override
+	void read(ResultSet rs, int col) throws SQLException {
+		String value = rs.getString(col);
+		if (size == codes.length) {
+			codes = Arrays.copyOf(codes, grow(codes.length));
+		}
+		if (value == null) {
+			markNull(size);
+			codes[size++] = NULL_CODE;
+			return;
+		}
+		Integer code = encoder.get(value);
+		if (code == null) {
+			if (dictionarySize == dictionary.length) {
+				dictionary = Arrays.copyOf(dictionary, grow(dictionary.length));
+			}
+			code = dictionarySize;
+			dictionary[dictionarySize++] = value;
+			encoder.put(value, code);
+		}
+		codes[size++] = code;
+	}
+
+	@Override
+	void trim() {
+		if (codes.length > size) {
+			codes = Arrays.copyOf(codes, size);
+		}
+		if (dictionary.length > dictionarySize) {
+			dictionary = Arrays.copyOf(dictionary, dictionarySize);
+		}
+		// encoder is only needed while reading
+		encoder = null;
+	}
+
+	public String get(int row) {
+		checkRow(row);
+		int code = codes[row];
+		return (code == NULL_CODE) ? null : dictionary[code];
+	}
+
+	// dictionary code of the row (-1 for null)
+	public int getCode(int row) {
+		checkRow(row);
+		return codes[row];
+	}
+
+	// zero copy codes (valid up to getSize())
+	public int[] codes() {
+		return codes;
+	}
+
+	// zero copy dictionary (valid up to getDictionarySize())
+	public String[] dictionary() {
+		return dictionary;
+	}
+
+	public int getDictionarySize() {
+		return dictionarySize;
+	}
+}
@@ -0,0 +1,41 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Date/time column stored as epoch milliseconds
+ */
+public class TimestampVector extends LongVector {
+
+	TimestampVector(String name, boolean direct) {
+		super(name, direct);
+	}
+
+	@Override
+	void read(ResultSet rs, int col) throws SQLException {
+		Timestamp value = rs.getTimestamp(col);
+		if (value == null) {
+			markNull(size);
+			add(0L);
+		} else {
+			add(value.getTime());
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.export;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Type specialized column encoders, shared by the export formats
+ */
+final class ColumnEncoders {
+
+	private final static byte[] NULL = "null".getBytes();
+	private final static byte[] TRUE = "true".getBytes();
+	private final static byte[] FALSE = "false".getBytes();
+
+	// will not be instantiated
+	private ColumnEncoders() {
+	}
+
+
+	// json: quoted strings and dates, null literal; csv: quoting only when needed, empty nulls
+	static ColumnEncoder build(final ResultSetMetaData rsmd, final int col, final boolean json, final char delimiter)
+			throws SQLException {
+		final byte[] nullValue = json ? NULL : new byte[0];
+		final boolean quoted = json;
+
+		switch (rsmd.getColumnType(col)) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				return (rs, out) -> {
+					long value = rs.getLong(col);
+					if (rs.wasNull()) {
+						out.write(nullValue);
+					} else {
+						out.writeLong(value);
+					}
+				};
+
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				// integral NUMBER(p<=18): no BigDecimal
+				if (rsmd.getScale(col) == 0 && rsmd.getPrecision(col) > 0 && rsmd.getPrecision(col) <= 18) {
+					return (rs, out) -> {
+						long value = rs.getLong(col);
+						if (rs.wasNull()) {
+							out.write(nullValue);
+						} else {
+							out.writeLong(value);
+						}
+					};
+				}
+				return (rs, out) -> {
+					BigDecimal value = rs.getBigDecimal(col);
+					if (value == null) {
+						out.write(nullValue);
+					} else if (value.unscaledValue().bitLength() < 64) {
+						out.writeDecimal(value.unscaledValue().longValue(), value.scale());
+					} else {
+						out.writeAscii(value.toPlainString());
+					}
+				};
+
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return (rs, out) -> {
+					double value = rs.getDouble(col);
+					if (rs.wasNull() || Double.isNaN(value) || Double.isInfinite(value)) {
+						out.write(nullValue);
+					} else if (value == (long) value && Math.abs(value) < 1e15) {
+						out.writeLong((long) value);
+					} else {
+						// shortest round trip digits: no allocation free formatter on Java 8
+						out.writeAscii(Double.toString(value));
+					}
+				};
+
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return (rs, out) -> {
+					boolean value = rs.getBoolean(col);
+					out.write(rs.wasNull() ? nullValue : (value ? TRUE : FALSE));
+				};
+
+			case Types.DATE:
+				return (rs, out) -> {
+					java.sql.Date value = rs.getDate(col);
+					if (value == null) {
+						out.write(nullValue);
+					} else {
+						quote(out, quoted);
+						writeDate(out, value.toLocalDate());
+						quote(out, quoted);
+					}
+				};
+
+			case Types.TIME:
+				return (rs, out) -> {
+					java.sql.Time value = rs.getTime(col);
+					if (value == null) {
+						out.write(nullValue);
+					} else {
+						quote(out, quoted);
+						writeTime(out, value.toLocalTime(), 0);
+						quote(out, quoted);
+					}
+				};
+
+			case Types.TIMESTAMP:
+				return (rs, out) -> {
+					Timestamp value = rs.getTimestamp(col);
+					if (value == null) {
+						out.write(nullValue);
+					} else {
+						LocalDateTime ldt = value.toLocalDateTime();
+						quote(out, quoted);
+						writeDate(out, ldt.toLocalDate());
+						out.writeByte('T');
+						writeTime(out, ldt.toLocalTime(), ldt.getNano());
+						quote(out, quoted);
+					}
+				};
+
+			case Types.BINARY:
+			case Types.VARBINARY:
+			case Types.LONGVARBINARY:
+			case Types.BLOB:
+				return (rs, out) -> {
+					byte[] value = rs.getBytes(col);
+					if (value == null) {
+						out.write(nullValue);
+					} else {
+						quote(out, quoted);
+						out.writeBase64(value);
+						quote(out, quoted);
+					}
+				};
+
+			default:
+				// text and anything else through its string form
+				return (rs, out) -> {
+					String value = rs.getString(col);
+					if (value == null) {
+						out.write(nullValue);
+					} else {
+						boolean quote = json || needsQuotes(value, delimiter);
+						quote(out, quote);
+						out.writeText(value, json);
+						quote(out, quote);
+					}
+				};
+		}
+	}
+
+	// RFC 4180: delimiter, quote or line break
+	static boolean needsQuotes(String value, char delimiter) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void quote(ExportBuffer out, boolean quote) throws IOException {
+		if (quote) {
+			out.writeByte('"');
+		}
+	}
+
+	private static void writeDate(ExportBuffer out, LocalDate date) throws IOException {
+		out.writePadded(date.getYear(), 4);
+		out.writeByte('-');
+		out.writePadded(date.getMonthValue(), 2);
+		out.writeByte('-');
+		out.writePadded(date.getDayOfMonth(), 2);
+	}
+
+	// ISO time, milliseconds when present
+	private static void writeTime(ExportBuffer out, LocalTime time, int nanos) throws IOException {
+		out.writePadded(time.getHour(), 2);
+		out.writeByte(':');
+		out.writePadded(time.getMinute(), 2);
+		out.writeByte(':');
+		out.writePadded(time.getSecond(), 2);
+		if (nanos != 0) {
+			out.writeByte('.');
+			out.writePadded(nanos / 1_000_000, 3);
+		}
+	}
+}
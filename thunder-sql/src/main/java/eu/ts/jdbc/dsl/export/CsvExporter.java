@@ -0,0 +1,92 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * RFC 4180 CSV: optional header of lower case column labels, fields quoted only when needed
+ */
+public final class CsvExporter extends ResultSetExporter {
+
+	private char delimiter = ',';
+	private boolean header = true;
+	private String lineSeparator = "\r\n";
+
+	public CsvExporter delimiter(final char delimiter) {
+		if (delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+			throw new RuntimeException("Invalid CSV delimiter: " + delimiter);
+		}
+		this.delimiter = delimiter;
+		return this;
+	}
+
+	public CsvExporter header(final boolean header) {
+		this.header = header;
+		return this;
+	}
+
+	public CsvExporter lineSeparator(final String lineSeparator) {
+		this.lineSeparator = lineSeparator;
+		return this;
+	}
+
+	@Override
+	protected ColumnEncoder encoder(ResultSetMetaData rsmd, int col) throws SQLException {
+		return ColumnEncoders.build(rsmd, col, false, delimiter);
+	}
+
+	@Override
+	protected void begin(String[] labels, ExportBuffer out) throws IOException {
+		if (!header) {
+			return;
+		}
+		for (int i = 0; i < labels.length; i++) {
+			if (i > 0) {
+				out.writeByte(delimiter);
+			}
+			boolean quote = ColumnEncoders.needsQuotes(labels[i], delimiter);
+			if (quote) {
+				out.writeByte('"');
+			}
+			out.writeText(labels[i], false);
+			if (quote) {
+				out.writeByte('"');
+			}
+		}
+		out.writeAscii(lineSeparator);
+	}
+
+	@Override
+	protected void row(ResultSet rs, ColumnEncoder[] encoders, long index, ExportBuffer out)
+			throws SQLException, IOException {
+		for (int i = 0; i < encoders.length; i++) {
+			if (i > 0) {
+				out.writeByte(delimiter);
+			}
+			encoders[i].encode(rs, out);
+		}
+		out.writeAscii(lineSeparator);
+	}
+
+	@Override
+	protected void end(ExportBuffer out) {
+		// no trailer
+	}
+}
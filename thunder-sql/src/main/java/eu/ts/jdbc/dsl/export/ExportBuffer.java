@@ -0,0 +1,278 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reusable output buffer of an export: values are written as bytes (numbers digit by digit, text as UTF-8)
+ * and flushed to the stream or channel when full.
+ */
+public final class ExportBuffer {
+
+	private final static int DEFAULT_SIZE = 64 * 1024;
+	private final static byte[] MIN_LONG = "-9223372036854775808".getBytes();
+	private final static byte[] HEX = "0123456789abcdef".getBytes();
+	private final static byte[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+
+	private final byte[] bytes;
+	private final OutputStream out;
+	private final WritableByteChannel channel;
+	private final ByteBuffer channelView;
+	private int pos = 0;
+	private long written = 0;
+
+	private ExportBuffer(int size, OutputStream out, WritableByteChannel channel) {
+		this.bytes = new byte[Math.max(size, 64)];
+		this.out = out;
+		this.channel = channel;
+		this.channelView = (channel == null) ? null : ByteBuffer.wrap(bytes);
+	}
+
+	public static ExportBuffer of(final OutputStream out) {
+		return new ExportBuffer(DEFAULT_SIZE, out, null);
+	}
+
+	public static ExportBuffer of(final WritableByteChannel channel) {
+		return new ExportBuffer(DEFAULT_SIZE, null, channel);
+	}
+
+
+	public void writeByte(int b) throws IOException {
+		if (pos == bytes.length) {
+			flush();
+		}
+		bytes[pos++] = (byte) b;
+	}
+
+	public void write(byte[] src) throws IOException {
+		if (src.length > bytes.length - pos) {
+			flush();
+			if (src.length > bytes.length) {
+				drain(src, src.length);
+				return;
+			}
+		}
+		System.arraycopy(src, 0, bytes, pos, src.length);
+		pos += src.length;
+	}
+
+	public void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			write(MIN_LONG);
+			return;
+		}
+		ensure(20);
+		if (value < 0) {
+			bytes[pos++] = '-';
+			value = -value;
+		}
+		int end = pos + digits(value);
+		for (int i = end - 1; i >= pos; i--) {
+			bytes[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		pos = end;
+	}
+
+	// unscaled * 10^-scale, plain notation (no exponent)
+	public void writeDecimal(long unscaled, int scale) throws IOException {
+		if (scale <= 0 || unscaled == Long.MIN_VALUE) {
+			writeLong(unscaled);
+			for (int i = scale; i < 0; i++) {
+				writeByte('0');
+			}
+			return;
+		}
+		if (scale > bytes.length - 22) {
+			// longer than the buffer: 0.000...digits
+			if (unscaled < 0) {
+				writeByte('-');
+				unscaled = -unscaled;
+			}
+			writeByte('0');
+			writeByte('.');
+			for (int i = digits(unscaled); i < scale; i++) {
+				writeByte('0');
+			}
+			writeLong(unscaled);
+			return;
+		}
+		ensure(scale + 22);
+		if (unscaled < 0) {
+			bytes[pos++] = '-';
+			unscaled = -unscaled;
+		}
+		int length = Math.max(digits(unscaled), scale + 1);
+		int end = pos + length + 1;
+		for (int i = end - 1; i >= pos; i--) {
+			if (i == end - 1 - scale) {
+				bytes[i] = '.';
+			} else {
+				bytes[i] = (byte) ('0' + unscaled % 10);
+				unscaled /= 10;
+			}
+		}
+		pos = end;
+	}
+
+	// zero padded fixed width number (dates, times)
+	public void writePadded(int value, int width) throws IOException {
+		ensure(width);
+		for (int i = pos + width - 1; i >= pos; i--) {
+			bytes[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		pos += width;
+	}
+
+	// text longer than the buffer is written in buffer sized chunks
+	public void writeAscii(String text) throws IOException {
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			ensure(Math.min(length - i, bytes.length));
+			int end = Math.min(length, i + bytes.length - pos);
+			while (i < end) {
+				bytes[pos++] = (byte) text.charAt(i++);
+			}
+		}
+	}
+
+	// UTF-8 text; quote and backslash escapes for JSON strings when json is set, doubled quotes otherwise
+	public void writeText(CharSequence text, boolean json) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (pos + 6 > bytes.length) {
+				flush();
+			}
+			if (c < 0x80) {
+				if (json && (c == '"' || c == '\\')) {
+					bytes[pos++] = '\\';
+					bytes[pos++] = (byte) c;
+				} else if (json && c < 0x20) {
+					writeControl(c);
+				} else if (!json && c == '"') {
+					bytes[pos++] = '"';
+					bytes[pos++] = '"';
+				} else {
+					bytes[pos++] = (byte) c;
+				}
+			} else if (c < 0x800) {
+				bytes[pos++] = (byte) (0xC0 | (c >> 6));
+				bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, text.charAt(++i));
+				bytes[pos++] = (byte) (0xF0 | (cp >> 18));
+				bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				bytes[pos++] = (byte) (0x80 | (cp & 0x3F));
+			} else {
+				bytes[pos++] = (byte) (0xE0 | (c >> 12));
+				bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	public void writeBase64(byte[] src) throws IOException {
+		int i = 0;
+		for (; i + 2 < src.length; i += 3) {
+			ensure(4);
+			int v = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+			bytes[pos++] = BASE64[v >>> 18];
+			bytes[pos++] = BASE64[(v >>> 12) & 0x3F];
+			bytes[pos++] = BASE64[(v >>> 6) & 0x3F];
+			bytes[pos++] = BASE64[v & 0x3F];
+		}
+		if (i < src.length) {
+			ensure(4);
+			int v = (src[i] & 0xFF) << 16 | ((i + 1 < src.length) ? (src[i + 1] & 0xFF) << 8 : 0);
+			bytes[pos++] = BASE64[v >>> 18];
+			bytes[pos++] = BASE64[(v >>> 12) & 0x3F];
+			bytes[pos++] = (i + 1 < src.length) ? BASE64[(v >>> 6) & 0x3F] : (byte) '=';
+			bytes[pos++] = '=';
+		}
+	}
+
+	public void flush() throws IOException {
+		if (pos > 0) {
+			drain(bytes, pos);
+			pos = 0;
+		}
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	// bytes handed to the stream or channel so far
+	public long getWritten() {
+		return written + pos;
+	}
+
+
+	private void ensure(int size) throws IOException {
+		if (pos + size > bytes.length) {
+			flush();
+		}
+	}
+
+	private void writeControl(char c) {
+		bytes[pos++] = '\\';
+		switch (c) {
+			case '\n':
+				bytes[pos++] = 'n';
+				break;
+			case '\r':
+				bytes[pos++] = 'r';
+				break;
+			case '\t':
+				bytes[pos++] = 't';
+				break;
+			default:
+				bytes[pos++] = 'u';
+				bytes[pos++] = '0';
+				bytes[pos++] = '0';
+				bytes[pos++] = HEX[c >> 4];
+				bytes[pos++] = HEX[c & 0xF];
+		}
+	}
+
+	private void drain(byte[] src, int length) throws IOException {
+		if (out != null) {
+			out.write(src, 0, length);
+		} else {
+			ByteBuffer view = (src == bytes) ? channelView : ByteBuffer.wrap(src);
+			view.clear().limit(length);
+			while (view.hasRemaining()) {
+				channel.write(view);
+			}
+		}
+		written += length;
+	}
+
+	private static int digits(long value) {
+		int n = 1;
+		for (long limit = 10; n < 19 && value >= limit; limit *= 10) {
+			n++;
+		}
+		return n;
+	}
+}
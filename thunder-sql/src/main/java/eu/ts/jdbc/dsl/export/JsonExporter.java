@@ -0,0 +1,70 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * JSON array of one object per row, keys are lower case column labels
+ */
+public final class JsonExporter extends ResultSetExporter {
+
+	// "label": prefix pre-encoded into the column encoder
+	@Override
+	protected ColumnEncoder encoder(ResultSetMetaData rsmd, int col) throws SQLException {
+		StringBuilder key = new StringBuilder((col == 1) ? "\"" : ",\"");
+		for (char c : rsmd.getColumnLabel(col).toLowerCase().toCharArray()) {
+			if (c == '"' || c == '\\') {
+				key.append('\\');
+			}
+			key.append(c);
+		}
+		final byte[] prefix = key.append("\":").toString().getBytes(StandardCharsets.UTF_8);
+		final ColumnEncoder value = ColumnEncoders.build(rsmd, col, true, ',');
+
+		return (rs, out) -> {
+			out.write(prefix);
+			value.encode(rs, out);
+		};
+	}
+
+	@Override
+	protected void begin(String[] labels, ExportBuffer out) throws IOException {
+		out.writeByte('[');
+	}
+
+	@Override
+	protected void row(ResultSet rs, ColumnEncoder[] encoders, long index, ExportBuffer out)
+			throws SQLException, IOException {
+		if (index > 0) {
+			out.writeByte(',');
+		}
+		out.writeByte('{');
+		for (ColumnEncoder encoder : encoders) {
+			encoder.encode(rs, out);
+		}
+		out.writeByte('}');
+	}
+
+	@Override
+	protected void end(ExportBuffer out) throws IOException {
+		out.writeByte(']');
+	}
+}
@@ -0,0 +1,67 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Streams a ResultSet to bytes without mapping rows: encoders are chosen once from column metadata,
+ * memory use does not depend on the row count.
+ */
+public abstract class ResultSetExporter {
+
+	// exported rows
+	public long export(final ResultSet rs, final OutputStream out) throws SQLException, IOException {
+		return export(rs, ExportBuffer.of(out));
+	}
+
+	public long export(final ResultSet rs, final WritableByteChannel channel) throws SQLException, IOException {
+		return export(rs, ExportBuffer.of(channel));
+	}
+
+	public long export(final ResultSet rs, final ExportBuffer out) throws SQLException, IOException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		ColumnEncoder[] encoders = new ColumnEncoder[rsmd.getColumnCount()];
+		String[] labels = new String[encoders.length];
+		for (int i = 0; i < encoders.length; i++) {
+			encoders[i] = encoder(rsmd, i + 1);
+			labels[i] = rsmd.getColumnLabel(i + 1).toLowerCase();
+		}
+
+		begin(labels, out);
+		long rows = 0;
+		while (rs.next()) {
+			row(rs, encoders, rows++, out);
+		}
+		end(out);
+		out.flush();
+		return rows;
+	}
+
+	protected abstract ColumnEncoder encoder(ResultSetMetaData rsmd, int col) throws SQLException;
+
+	protected abstract void begin(String[] labels, ExportBuffer out) throws IOException;
+
+	protected abstract void row(ResultSet rs, ColumnEncoder[] encoders, long index, ExportBuffer out)
+			throws SQLException, IOException;
+
+	protected abstract void end(ExportBuffer out) throws IOException;
+}
@@ -0,0 +1,465 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds typed, reflection free accessors for the per-row mapping path.
+ * <p>
+ * Public setters and constructors are linked through LambdaMetafactory (plain interface calls, no boxing),
+ * everything else through exact typed MethodHandles. Reflective Field.set is kept only as last resort
+ * (e.g. final fields).
+ */
+public final class ApplierFactory {
+
+	private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	// Typed setters: primitive values never get boxed
+	public interface IntSetter {
+		void set(Object pojo, int value);
+	}
+
+	public interface LongSetter {
+		void set(Object pojo, long value);
+	}
+
+	public interface DoubleSetter {
+		void set(Object pojo, double value);
+	}
+
+	public interface FloatSetter {
+		void set(Object pojo, float value);
+	}
+
+	public interface ShortSetter {
+		void set(Object pojo, short value);
+	}
+
+	public interface ByteSetter {
+		void set(Object pojo, byte value);
+	}
+
+	public interface BooleanSetter {
+		void set(Object pojo, boolean value);
+	}
+
+	public interface ObjectSetter {
+		void set(Object pojo, Object value);
+	}
+
+	// Column value for constructor/factory parameters
+	public interface ColumnReader {
+		Object read(ResultSet rs) throws SQLException;
+	}
+
+	// will not be instantiated
+	private ApplierFactory() {
+	}
+
+
+	// Instance factory for a class with a default constructor
+	@SuppressWarnings("unchecked")
+	public static <T> Supplier<T> instanceFactory(final Class<T> clazz) {
+		final Constructor<T> constructor;
+		try {
+			constructor = clazz.getDeclaredConstructor();
+		} catch (NoSuchMethodException ex) {
+			throw new RuntimeException("Unable to find default constructor for: " + clazz.getName() + "()", ex);
+		}
+
+		try {
+			if (isLinkable(clazz, constructor.getModifiers())) {
+				MethodHandle mh = LOOKUP.unreflectConstructor(constructor);
+				return (Supplier<T>) LambdaMetafactory.metafactory(LOOKUP, "get",
+						MethodType.methodType(Supplier.class),
+						MethodType.methodType(Object.class),
+						mh, MethodType.methodType(clazz)
+				).getTarget().invoke();
+			}
+			constructor.setAccessible(true);
+			final MethodHandle mh = LOOKUP.unreflectConstructor(constructor)
+					.asType(MethodType.methodType(Object.class));
+			return () -> {
+				try {
+					return (T) (Object) mh.invokeExact();
+				} catch (Throwable ex) {
+					throw new RuntimeException("Unable to instantiate class: " + clazz.getName(), ex);
+				}
+			};
+		} catch (Throwable ex) {
+			throw new RuntimeException("Unable to link constructor of: " + clazz.getName(), ex);
+		}
+	}
+
+
+	// Column applier reading the best matching JDBC getter for the field type
+	public static ClassAttributeApplier build(final Field field, final int col) {
+		Class<?> fieldType = field.getType();
+
+		try {
+			if (fieldType == int.class) {
+				final IntSetter setter = setter(field, IntSetter.class, int.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getInt(col));
+			}
+			if (fieldType == long.class) {
+				final LongSetter setter = setter(field, LongSetter.class, long.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getLong(col));
+			}
+			if (fieldType == double.class) {
+				final DoubleSetter setter = setter(field, DoubleSetter.class, double.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getDouble(col));
+			}
+			if (fieldType == float.class) {
+				final FloatSetter setter = setter(field, FloatSetter.class, float.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getFloat(col));
+			}
+			if (fieldType == short.class) {
+				final ShortSetter setter = setter(field, ShortSetter.class, short.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getShort(col));
+			}
+			if (fieldType == byte.class) {
+				final ByteSetter setter = setter(field, ByteSetter.class, byte.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getByte(col));
+			}
+			if (fieldType == boolean.class) {
+				final BooleanSetter setter = setter(field, BooleanSetter.class, boolean.class);
+				return (pojo, rs) -> setter.set(pojo, rs.getBoolean(col));
+			}
+
+			final ObjectSetter setter = setter(field, ObjectSetter.class, Object.class);
+
+			// JDBC getter Optimization: wrappers keep SQL NULL as null
+			if (fieldType == Integer.class)
+				return (pojo, rs) -> {
+					int value = rs.getInt(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == Long.class)
+				return (pojo, rs) -> {
+					long value = rs.getLong(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == Double.class)
+				return (pojo, rs) -> {
+					double value = rs.getDouble(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == Float.class)
+				return (pojo, rs) -> {
+					float value = rs.getFloat(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == Short.class)
+				return (pojo, rs) -> {
+					short value = rs.getShort(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == Byte.class)
+				return (pojo, rs) -> {
+					byte value = rs.getByte(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == Boolean.class)
+				return (pojo, rs) -> {
+					boolean value = rs.getBoolean(col);
+					setter.set(pojo, rs.wasNull() ? null : value);
+				};
+			if (fieldType == String.class)
+				return (pojo, rs) -> setter.set(pojo, rs.getString(col));
+			if (fieldType == BigDecimal.class)
+				return (pojo, rs) -> setter.set(pojo, rs.getBigDecimal(col));
+			if (fieldType == Timestamp.class)
+				return (pojo, rs) -> setter.set(pojo, rs.getTimestamp(col));
+			if (fieldType == Date.class)
+				return (pojo, rs) -> setter.set(pojo, rs.getDate(col));
+			if (fieldType == Time.class)
+				return (pojo, rs) -> setter.set(pojo, rs.getTime(col));
+			if (fieldType == byte[].class)
+				return (pojo, rs) -> setter.set(pojo, rs.getBytes(col));
+
+			// return others generic appliers for Objects
+			return (pojo, rs) -> setter.set(pojo, rs.getObject(col, fieldType));
+		} catch (IllegalAccessException ex) {
+			// final fields cannot be linked: keep the reflective path
+			return reflective(field, col);
+		}
+	}
+
+
+	// Column reader for a parameter type: primitives read SQL NULL as zero, wrappers as null
+	public static ColumnReader reader(final Class<?> type, final int col) {
+		if (type == int.class)
+			return rs -> rs.getInt(col);
+		if (type == long.class)
+			return rs -> rs.getLong(col);
+		if (type == double.class)
+			return rs -> rs.getDouble(col);
+		if (type == float.class)
+			return rs -> rs.getFloat(col);
+		if (type == short.class)
+			return rs -> rs.getShort(col);
+		if (type == byte.class)
+			return rs -> rs.getByte(col);
+		if (type == boolean.class)
+			return rs -> rs.getBoolean(col);
+		if (type == Integer.class)
+			return rs -> {
+				int value = rs.getInt(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == Long.class)
+			return rs -> {
+				long value = rs.getLong(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == Double.class)
+			return rs -> {
+				double value = rs.getDouble(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == Float.class)
+			return rs -> {
+				float value = rs.getFloat(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == Short.class)
+			return rs -> {
+				short value = rs.getShort(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == Byte.class)
+			return rs -> {
+				byte value = rs.getByte(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == Boolean.class)
+			return rs -> {
+				boolean value = rs.getBoolean(col);
+				return rs.wasNull() ? null : value;
+			};
+		if (type == String.class)
+			return rs -> rs.getString(col);
+		if (type == BigDecimal.class)
+			return rs -> rs.getBigDecimal(col);
+		if (type == Timestamp.class)
+			return rs -> rs.getTimestamp(col);
+		if (type == Date.class)
+			return rs -> rs.getDate(col);
+		if (type == Time.class)
+			return rs -> rs.getTime(col);
+		if (type == byte[].class)
+			return rs -> rs.getBytes(col);
+		return rs -> rs.getObject(col, type);
+	}
+
+
+	// Typed field reader (bean to statement parameters)
+	public static Function<Object, Object> getter(final Field field) {
+		field.setAccessible(true);
+		final MethodHandle mh;
+		try {
+			mh = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException("Unable to read field: " + field, ex);
+		}
+		return pojo -> {
+			try {
+				return (Object) mh.invokeExact(pojo);
+			} catch (Throwable ex) {
+				throw new RuntimeException(ex);
+			}
+		};
+	}
+
+
+	// Untyped field writer (setter method if public, field handle otherwise)
+	public static ObjectSetter objectSetter(final Field field) {
+		try {
+			return setter(field, ObjectSetter.class, Object.class);
+		} catch (IllegalAccessException ex) {
+			// final fields: reflective write
+			field.setAccessible(true);
+			return (pojo, value) -> {
+				try {
+					field.set(pojo, value);
+				} catch (IllegalAccessException e) {
+					throw new RuntimeException(e);
+				}
+			};
+		}
+	}
+
+
+	// Legacy reflective applier
+	private static ClassAttributeApplier reflective(final Field field, final int col) {
+		final Class<?> fieldType = field.getType();
+		field.setAccessible(true);
+		return (pojo, rs) -> field.set(pojo, rs.getObject(col, fieldType));
+	}
+
+
+	// Typed setter linking: public setter method if present, direct field access otherwise
+	@SuppressWarnings("unchecked")
+	private static <S> S setter(final Field field, final Class<S> setterType, final Class<?> valueType)
+			throws IllegalAccessException {
+
+		Class<?> clazz = field.getDeclaringClass();
+		MethodType erased = MethodType.methodType(void.class, Object.class, valueType);
+
+		Method method = findSetter(clazz, field);
+		try {
+			if (method != null && isLinkable(clazz, method.getModifiers())) {
+				return (S) LambdaMetafactory.metafactory(LOOKUP, "set",
+						MethodType.methodType(setterType),
+						erased,
+						LOOKUP.unreflect(method),
+						MethodType.methodType(void.class, clazz, field.getType())
+				).getTarget().invoke();
+			}
+		} catch (Throwable ignored) { /* fallback to field handle */ }
+
+		field.setAccessible(true);
+		final MethodHandle mh = LOOKUP.unreflectSetter(field).asType(erased);
+		return handleSetter(mh, setterType);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <S> S handleSetter(final MethodHandle mh, final Class<S> setterType) {
+		Object setter;
+		if (setterType == IntSetter.class) {
+			setter = (IntSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else if (setterType == LongSetter.class) {
+			setter = (LongSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else if (setterType == DoubleSetter.class) {
+			setter = (DoubleSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else if (setterType == FloatSetter.class) {
+			setter = (FloatSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else if (setterType == ShortSetter.class) {
+			setter = (ShortSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else if (setterType == ByteSetter.class) {
+			setter = (ByteSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else if (setterType == BooleanSetter.class) {
+			setter = (BooleanSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		} else {
+			setter = (ObjectSetter) (pojo, value) -> {
+				try {
+					mh.invokeExact(pojo, value);
+				} catch (Throwable ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		}
+		return (S) setter;
+	}
+
+
+	// JavaBean setter lookup (Lombok style, boolean "isXxx" fields included)
+	private static Method findSetter(Class<?> clazz, Field field) {
+		String name = field.getName();
+		String[] candidates;
+		if (field.getType() == boolean.class && name.startsWith("is") && name.length() > 2
+				&& Character.isUpperCase(name.charAt(2))) {
+			candidates = new String[]{"set" + name.substring(2), "set" + capitalize(name)};
+		} else {
+			candidates = new String[]{"set" + capitalize(name)};
+		}
+		for (String candidate : candidates) {
+			try {
+				return clazz.getMethod(candidate, field.getType());
+			} catch (NoSuchMethodException ignored) { /* try next */ }
+		}
+		return null;
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	// LambdaMetafactory needs a public target visible from this ClassLoader
+	private static boolean isLinkable(Class<?> clazz, int memberModifiers) {
+		if (!Modifier.isPublic(memberModifiers)) {
+			return false;
+		}
+		for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		try {
+			return Class.forName(clazz.getName(), false, ApplierFactory.class.getClassLoader()) == clazz;
+		} catch (ClassNotFoundException ex) {
+			return false;
+		}
+	}
+}
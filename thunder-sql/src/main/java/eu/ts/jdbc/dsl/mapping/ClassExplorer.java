@@ -21,24 +21,25 @@ import java.util.Map;
 
 public class ClassExplorer {
 
-	private final static LRUCache<String, Map<String, Field>> pojoCache = new LRUCache<>();
+	private final static ConcurrentCache<String, Map<String, Field>> pojoCache = new ConcurrentCache<>();
 
-	private final String className;
+	private final Map<String, Field> classFields;
 
 	private ClassExplorer(Class<?> clazz) {
-		this.className = clazz.getName();
-		Field[] fields = clazz.getDeclaredFields();
+		String className = clazz.getName();
 
 		Map<String, Field> classFields = pojoCache.get(className);
 		if (classFields == null) {
 			classFields = new HashMap<>();
 
-			for (Field field : fields) {
+			for (Field field : clazz.getDeclaredFields()) {
 				field.setAccessible(true);
 				classFields.put(field.getName().toLowerCase(), field);
 			}
 			pojoCache.cache(className, classFields);
 		}
+		// keep own reference: cached entry may be concurrently evicted
+		this.classFields = classFields;
 	}
 
 	public static <T> ClassExplorer build(Class<T> clazz) {
@@ -46,7 +47,7 @@ public class ClassExplorer {
 	}
 
 	public Map<String, Field> getFields() {
-		return pojoCache.get(className);
+		return classFields;
 	}
 
 
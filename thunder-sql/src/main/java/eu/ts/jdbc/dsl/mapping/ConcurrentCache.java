@@ -0,0 +1,232 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe cache for shared internal purposes (same API of {@link LRUCache}).
+ * <p>
+ * Reads are lock free: a hit only bumps a small saturating frequency counter on the entry.
+ * Writes that overflow the cache evict the least frequently used entry among a few random samples
+ * (TinyLFU like); counters are periodically halved so that old popularity fades out.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ConcurrentCache<K, V> {
+
+	private final static int DEFAULT_CACHE_SIZE = 1000;
+	private final static int SAMPLE_SIZE = 8;
+	private final static int MAX_FREQUENCY = 15;
+
+	private final int maxSize;
+	private final ConcurrentHashMap<K, Node<K, V>> cacheMap;
+
+	// slot table for O(1) random sampling, guarded by writeLock
+	private final Object writeLock = new Object();
+	private final Node<K, V>[] slots;
+	private int used = 0;
+	private int insertsSinceAging = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private final static class Node<K, V> {
+		private final K key;
+		private volatile V value;
+		private volatile int frequency = 1;
+		private int slot;
+
+		private Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+
+	public ConcurrentCache() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ConcurrentCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new RuntimeException("Invalid cache size: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.cacheMap = new ConcurrentHashMap<>(maxSize * 4 / 3);
+		this.slots = (Node<K, V>[]) new Node[maxSize];
+	}
+
+	public ConcurrentCache(final int maxSize, final Map<K, V> map) {
+		this((maxSize > map.size()) ? maxSize : map.size());
+		cache(map);
+	}
+
+
+	public V get(K key) {
+		Node<K, V> node = cacheMap.get(key);
+		if (node == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		// racy increment is fine: frequency is only an eviction hint
+		int frequency = node.frequency;
+		if (frequency < MAX_FREQUENCY) {
+			node.frequency = frequency + 1;
+		}
+		return node.value;
+	}
+
+	public void cache(K key, V value) {
+		Node<K, V> node = cacheMap.get(key);
+		if (node != null) {
+			node.value = value;
+			return;
+		}
+
+		synchronized (writeLock) {
+			node = cacheMap.get(key);
+			if (node != null) {
+				node.value = value;
+				return;
+			}
+
+			node = new Node<>(key, value);
+			if (used < maxSize) {
+				node.slot = used++;
+			} else {
+				Node<K, V> victim = sampleVictim();
+				cacheMap.remove(victim.key);
+				node.slot = victim.slot;
+				evictions.increment();
+			}
+			slots[node.slot] = node;
+			cacheMap.put(key, node);
+
+			if (++insertsSinceAging >= maxSize) {
+				age();
+			}
+		}
+	}
+
+	public void cache(Map<K, V> map) {
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			cache(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public void invalidate(K key) {
+		synchronized (writeLock) {
+			Node<K, V> node = cacheMap.remove(key);
+			if (node != null) {
+				// keep slot table compact moving last slot on the hole
+				Node<K, V> last = slots[--used];
+				slots[node.slot] = last;
+				last.slot = node.slot;
+				slots[used] = null;
+			}
+		}
+	}
+
+	public void invalidateIf(Predicate<K> condition) {
+		synchronized (writeLock) {
+			for (int i = used - 1; i >= 0; i--) {
+				Node<K, V> node = slots[i];
+				if (condition.test(node.key)) {
+					cacheMap.remove(node.key);
+					Node<K, V> last = slots[--used];
+					slots[i] = last;
+					last.slot = i;
+					slots[used] = null;
+				}
+			}
+		}
+	}
+
+	public void invalidateAll() {
+		synchronized (writeLock) {
+			cacheMap.clear();
+			for (int i = 0; i < used; i++) {
+				slots[i] = null;
+			}
+			used = 0;
+		}
+	}
+
+
+	// Snapshot of cached values
+	public Map<K, V> getMap() {
+		Map<K, V> map = new HashMap<>();
+		for (Map.Entry<K, Node<K, V>> entry : cacheMap.entrySet()) {
+			map.put(entry.getKey(), entry.getValue().value);
+		}
+		return map;
+	}
+
+	public int size() {
+		return cacheMap.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[size=%d, hits=%d, misses=%d, evictions=%d]",
+				getClass().getSimpleName(), size(), getHitCount(), getMissCount(), getEvictionCount()
+		);
+	}
+
+
+	// least frequently used among random samples
+	private Node<K, V> sampleVictim() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Node<K, V> victim = slots[random.nextInt(used)];
+		for (int i = 1; i < SAMPLE_SIZE; i++) {
+			Node<K, V> candidate = slots[random.nextInt(used)];
+			if (candidate.frequency < victim.frequency) {
+				victim = candidate;
+			}
+		}
+		return victim;
+	}
+
+	// halving counters keeps frequencies relative to recent history
+	private void age() {
+		for (int i = 0; i < used; i++) {
+			slots[i].frequency >>= 1;
+		}
+		insertsSinceAging = 0;
+	}
+}
@@ -0,0 +1,139 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Learns per statement fetch sizes from observed row counts and row widths.
+ * <p>
+ * The advised fetch size covers the usual row count in one round trip (plus headroom), bounded by
+ * [minFetchSize, maxFetchSize] and by maxFetchBytes of estimated driver buffer.
+ */
+public class FetchSizeAdvisor {
+
+	private final static double SMOOTHING = 0.2;
+	private final static double HEADROOM = 1.25;
+	private final static int MAX_COLUMN_WIDTH = 4000;
+
+	private static volatile int minFetchSize = 10;
+	private static volatile int maxFetchSize = 10000;
+	private static volatile long maxFetchBytes = 4L * 1024 * 1024;
+
+	// bounded like the statement registry: statistics of evicted statements are learned again
+	private final static ConcurrentCache<String, Statistics> statistics = new ConcurrentCache<>();
+
+	private FetchSizeAdvisor() {
+		// will not be instantiated
+	}
+
+
+	public final static class Statistics {
+		private volatile double averageRows = -1;
+		private volatile int rowWidth = 0;
+		private volatile long executions = 0;
+		private volatile int fetchSize = 0;
+
+		public double getAverageRows() {
+			return averageRows;
+		}
+
+		public int getRowWidth() {
+			return rowWidth;
+		}
+
+		public long getExecutions() {
+			return executions;
+		}
+
+		public int getFetchSize() {
+			return fetchSize;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("[avgRows=%.1f, rowWidth=%d, executions=%d, fetchSize=%d]",
+					averageRows, rowWidth, executions, fetchSize);
+		}
+	}
+
+
+	public static void configure(int minRows, int maxRows, long maxBytes) {
+		if (minRows <= 0 || maxRows < minRows || maxBytes <= 0) {
+			throw new RuntimeException("Invalid fetch size bounds");
+		}
+		minFetchSize = minRows;
+		maxFetchSize = maxRows;
+		maxFetchBytes = maxBytes;
+		// learned sizes are recomputed on next record
+	}
+
+	// learned fetch size (0: nothing learned yet, driver default)
+	public static int advise(String queryName) {
+		Statistics stats = statistics.get(queryName);
+		return (stats == null) ? 0 : stats.fetchSize;
+	}
+
+	public static boolean needsRowWidth(String queryName) {
+		Statistics stats = statistics.get(queryName);
+		return stats == null || stats.rowWidth == 0;
+	}
+
+	public static void recordRowWidth(String queryName, ResultSetMetaData rsmd) throws SQLException {
+		int width = 0;
+		for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+			int size = rsmd.getColumnDisplaySize(i);
+			width += (size <= 0 || size > MAX_COLUMN_WIDTH) ? MAX_COLUMN_WIDTH : size;
+		}
+		statistics(queryName).rowWidth = Math.max(1, width);
+	}
+
+	// racy updates are fine: statistics are only a hint
+	public static void recordRows(String queryName, long rows) {
+		Statistics stats = statistics(queryName);
+		double average = (stats.averageRows < 0) ? rows : stats.averageRows + SMOOTHING * (rows - stats.averageRows);
+		stats.averageRows = average;
+		stats.executions++;
+
+		long wanted = (long) Math.ceil(average * HEADROOM) + 1;
+		long byMemory = maxFetchBytes / Math.max(1, stats.rowWidth);
+		long size = Math.min(wanted, Math.min(maxFetchSize, byMemory));
+		stats.fetchSize = (int) Math.max(minFetchSize, size);
+	}
+
+
+	// learned values by statement name (diagnostics)
+	public static Map<String, Statistics> snapshot() {
+		return Collections.unmodifiableMap(statistics.getMap());
+	}
+
+	public static void reset() {
+		statistics.invalidateAll();
+	}
+
+	// concurrent first records may replace each other's entry: statistics are only a hint
+	private static Statistics statistics(String queryName) {
+		Statistics stats = statistics.get(queryName);
+		if (stats == null) {
+			stats = new Statistics();
+			statistics.cache(queryName, stats);
+		}
+		return stats;
+	}
+}
@@ -0,0 +1,41 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import eu.ts.jdbc.dsl.ResultSetHandler;
+
+/**
+ * Row mapper generated at compile time for a {@link GenerateRowMapper} class.
+ * <p>
+ * The unbound instance (public no-arg constructor) resolves attribute names; {@link #bind} returns the handler
+ * for one column layout, each column dispatched through a switch on the resolved attribute.
+ *
+ * @param <T>
+ */
+public interface GeneratedRowMapper<T> extends ResultSetHandler<T> {
+
+	/**
+	 * @param name lower case attribute name
+	 * @return attribute code, 0 when the class has no such attribute
+	 */
+	int attribute(String name);
+
+	/**
+	 * @param attributes attribute code of each column (index 0 is column 1)
+	 * @return handler for the given column layout
+	 */
+	GeneratedRowMapper<T> bind(int[] attributes);
+}
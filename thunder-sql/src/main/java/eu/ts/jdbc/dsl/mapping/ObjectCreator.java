@@ -0,0 +1,270 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import eu.ts.jdbc.dsl.ResultSetHandler;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+
+/**
+ * Creates instances through a constructor or static factory: immutable classes (Lombok @Value /
+ * @AllArgsConstructor, records) are mapped without a default constructor and without field writes.
+ * <p>
+ * Parameter names are resolved once per class; columns are bound to parameters once per query shape. They come
+ * from {@link MappingConstructor}, {@link ConstructorProperties} (Lombok: lombok.anyConstructor.addConstructorProperties),
+ * classes compiled with -parameters or record components: declared field order is never trusted.
+ */
+final class ObjectCreator {
+
+	private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private final static ConcurrentCache<Class<?>, ObjectCreator> creatorCache = new ConcurrentCache<>();
+
+	// cached marker for default constructor classes
+	private final static ObjectCreator BEAN = new ObjectCreator();
+
+	private final static String NAMES_HINT = " (parameter names unknown: use @MappingConstructor, "
+			+ "@ConstructorProperties or compile with -parameters)";
+
+	private final Class<?> clazz;
+	private final String[] names;
+	private final Class<?>[] types;
+	private final MethodHandle spreader;
+
+	private ObjectCreator() {
+		this.clazz = null;
+		this.names = null;
+		this.types = null;
+		this.spreader = null;
+	}
+
+	private ObjectCreator(Class<?> clazz, Executable executable, String[] names) {
+		this.clazz = clazz;
+		this.names = names;
+		this.types = executable.getParameterTypes();
+		try {
+			MethodHandle mh;
+			if (!isAccessible(executable)) {
+				executable.setAccessible(true);
+			}
+			mh = (executable instanceof Constructor)
+					? LOOKUP.unreflectConstructor((Constructor<?>) executable)
+					: LOOKUP.unreflect((Method) executable);
+			// pre-bound spreader: one invokeExact per row
+			this.spreader = mh.asSpreader(Object[].class, types.length)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException("Unable to link " + executable, ex);
+		}
+	}
+
+	// cached creator, null for classes to be mapped through default constructor and setters
+	static ObjectCreator find(Class<?> clazz) {
+		ObjectCreator creator = creatorCache.get(clazz);
+		if (creator == null) {
+			creator = lookup(clazz);
+			creatorCache.cache(clazz, (creator == null) ? BEAN : creator);
+		}
+		return (creator == BEAN) ? null : creator;
+	}
+
+	String[] getNames() {
+		return names;
+	}
+
+	Class<?>[] getTypes() {
+		return types;
+	}
+
+	// row handler reading columns[i] (1 based, 0 when unmapped) into parameter i
+	@SuppressWarnings("unchecked")
+	<T> ResultSetHandler<T> bind(int[] columns) {
+		final int size = types.length;
+		final ApplierFactory.ColumnReader[] readers = new ApplierFactory.ColumnReader[size];
+		final Object[] defaults = new Object[size];
+		for (int i = 0; i < size; i++) {
+			if (columns[i] > 0) {
+				readers[i] = ApplierFactory.reader(types[i], columns[i]);
+			}
+			defaults[i] = defaultValue(types[i]);
+		}
+
+		return rs -> {
+			Object[] args = defaults.clone();
+			for (int i = 0; i < size; i++) {
+				if (readers[i] != null) {
+					args[i] = readers[i].read(rs);
+				}
+			}
+			return (T) newInstance(args);
+		};
+	}
+
+	// args ordered like getNames()
+	Object newInstance(Object[] args) {
+		try {
+			return spreader.invokeExact(args);
+		} catch (Throwable ex) {
+			throw new RuntimeException("Unable to instantiate class: " + clazz.getName(), ex);
+		}
+	}
+
+
+	private static ObjectCreator lookup(Class<?> clazz) {
+		// explicit choice first
+		for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+			if (constructor.isAnnotationPresent(MappingConstructor.class)) {
+				return annotated(clazz, constructor);
+			}
+		}
+		for (Method method : clazz.getDeclaredMethods()) {
+			if (method.isAnnotationPresent(MappingConstructor.class)) {
+				if (!Modifier.isStatic(method.getModifiers()) || !clazz.isAssignableFrom(method.getReturnType())) {
+					throw new RuntimeException("Mapping factory must be static and return " + clazz.getName()
+							+ ": " + method);
+				}
+				return annotated(clazz, method);
+			}
+		}
+
+		// plain beans keep the setter path
+		try {
+			clazz.getDeclaredConstructor();
+			return null;
+		} catch (NoSuchMethodException ignored) { /* immutable class */ }
+
+		// widest constructor with resolvable parameter names
+		ObjectCreator best = null;
+		for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+			String[] names = parameterNames(clazz, constructor);
+			if (names != null && (best == null || names.length > best.names.length)) {
+				best = new ObjectCreator(clazz, constructor, names);
+			}
+		}
+		if (best == null) {
+			throw new RuntimeException("Unable to find a default or mapping constructor for: " + clazz.getName()
+					+ NAMES_HINT);
+		}
+		return best;
+	}
+
+	private static ObjectCreator annotated(Class<?> clazz, Executable executable) {
+		String[] names = executable.getAnnotation(MappingConstructor.class).value();
+		if (names.length == 0) {
+			names = parameterNames(clazz, executable);
+		}
+		if (names == null || names.length != executable.getParameterCount()) {
+			throw new RuntimeException("Unable to resolve parameter names of: " + executable + NAMES_HINT);
+		}
+		return new ObjectCreator(clazz, executable, lowerCase(names));
+	}
+
+	// @ConstructorProperties, compiled parameter names or record components, null when unknown
+	private static String[] parameterNames(Class<?> clazz, Executable executable) {
+		ConstructorProperties properties = executable.getAnnotation(ConstructorProperties.class);
+		if (properties != null && properties.value().length == executable.getParameterCount()) {
+			return lowerCase(properties.value());
+		}
+
+		Parameter[] parameters = executable.getParameters();
+		if (parameters.length > 0 && parameters[0].isNamePresent()) {
+			String[] names = new String[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				names[i] = parameters[i].getName();
+			}
+			return lowerCase(names);
+		}
+		return (executable instanceof Constructor) ? recordComponentNames(clazz, executable.getParameterTypes()) : null;
+	}
+
+	// canonical record constructor (Java 16+, looked up reflectively): component order is the declared one
+	private static String[] recordComponentNames(Class<?> clazz, Class<?>[] types) {
+		try {
+			Object[] components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(clazz);
+			if (components == null || components.length != types.length) {
+				return null;
+			}
+			String[] names = new String[types.length];
+			for (int i = 0; i < types.length; i++) {
+				Class<?> componentClass = components[i].getClass();
+				if (componentClass.getMethod("getType").invoke(components[i]) != types[i]) {
+					return null;
+				}
+				names[i] = (String) componentClass.getMethod("getName").invoke(components[i]);
+			}
+			return lowerCase(names);
+		} catch (ReflectiveOperationException ex) {
+			// before Java 16: no records
+			return null;
+		}
+	}
+
+	private static String[] lowerCase(String[] names) {
+		String[] lower = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			lower[i] = names[i].toLowerCase();
+		}
+		return lower;
+	}
+
+	private static boolean isAccessible(Executable executable) {
+		if (!Modifier.isPublic(executable.getModifiers())) {
+			return false;
+		}
+		for (Class<?> c = executable.getDeclaringClass(); c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// primitive parameters without column (or SQL NULL) get their zero value
+	private static Object defaultValue(Class<?> type) {
+		if (type == int.class) {
+			return 0;
+		}
+		if (type == long.class) {
+			return 0L;
+		}
+		if (type == double.class) {
+			return 0d;
+		}
+		if (type == float.class) {
+			return 0f;
+		}
+		if (type == short.class) {
+			return (short) 0;
+		}
+		if (type == byte.class) {
+			return (byte) 0;
+		}
+		if (type == boolean.class) {
+			return false;
+		}
+		if (type == char.class) {
+			return '\0';
+		}
+		return null;
+	}
+}
@@ -0,0 +1,84 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * Typed PreparedStatement parameter binding shared by the DSL statements
+ */
+public final class ParameterBinder {
+
+	// will not be instantiated
+	private ParameterBinder() {
+	}
+
+	// Deferred applier for a single query parameter
+	public static <T> QueryParameterApplier applier(Class<T> paramClass, T value) {
+		//TODO: must cover most of types: Boolean,SmallInt,Float,byte[]
+		if (paramClass == Integer.class)
+			return (statement, position) -> statement.setInt(position, (Integer) value);
+		if (paramClass == Long.class)
+			return (statement, position) -> statement.setLong(position, (Long) value);
+		if (paramClass == String.class)
+			return (statement, position) -> statement.setString(position, (String) value);
+		if (paramClass == Timestamp.class)
+			return (statement, position) -> statement.setTimestamp(position, (Timestamp) value);
+		if (paramClass == Time.class)
+			return (statement, position) -> statement.setTime(position, (Time) value);
+		if (paramClass == Date.class)
+			return (statement, position) -> statement.setDate(position, (Date) value);
+		if (paramClass == BigDecimal.class)
+			return (statement, position) -> statement.setBigDecimal(position, (BigDecimal) value);
+		if (paramClass == Double.class)
+			return (statement, position) -> statement.setDouble(position, (Double) value);
+		// fallback for unknown object type
+		return (statement, position) -> statement.setObject(position, value);
+	}
+
+	// Immediate binding, no applier allocation (batch rows)
+	public static void bind(PreparedStatement statement, int position, Object value) throws SQLException {
+		if (value == null) {
+			statement.setObject(position, null);
+			return;
+		}
+		Class<?> paramClass = value.getClass();
+		if (paramClass == Integer.class)
+			statement.setInt(position, (Integer) value);
+		else if (paramClass == Long.class)
+			statement.setLong(position, (Long) value);
+		else if (paramClass == String.class)
+			statement.setString(position, (String) value);
+		else if (paramClass == Timestamp.class)
+			statement.setTimestamp(position, (Timestamp) value);
+		else if (paramClass == Time.class)
+			statement.setTime(position, (Time) value);
+		else if (paramClass == Date.class)
+			statement.setDate(position, (Date) value);
+		else if (paramClass == BigDecimal.class)
+			statement.setBigDecimal(position, (BigDecimal) value);
+		else if (paramClass == Double.class)
+			statement.setDouble(position, (Double) value);
+		else
+			// fallback for unknown object type
+			statement.setObject(position, value);
+	}
+}
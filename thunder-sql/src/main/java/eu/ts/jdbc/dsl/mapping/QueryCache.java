@@ -15,29 +15,83 @@
  =============================================================================*/
 package eu.ts.jdbc.dsl.mapping;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class QueryCache {
 
-	private final static LRUCache<String, QueryParser> cache = new LRUCache<>();
+	private final static ConcurrentCache<String, QueryParser> cache = new ConcurrentCache<>();
+	// named statements are registered once (e.g. by Warmup) and never evicted, also indexed by their SQL text
+	// so that the same text passed as ad-hoc SQL resolves to the named statement
+	private final static Map<String, QueryParser> namedStatements = new ConcurrentHashMap<>();
+	private final static Map<String, QueryParser> namedBySql = new ConcurrentHashMap<>();
+	// ad-hoc statements by SQL text: String hash is cached by the instance and equals() short-circuits
+	// on identity, so constant SQL strings are resolved without scanning their content again
+	private final static ConcurrentCache<String, QueryParser> sqlCache = new ConcurrentCache<>();
+	// partition sub-queries by derived name (e.g. "<name>#<partitioning>p<i>"), apart from ad-hoc statements
+	private final static ConcurrentCache<String, QueryParser> partitionCache = new ConcurrentCache<>();
 
 	private QueryCache() {
 		// will be a shared single instance
 	}
 
 	public static QueryParser registerNamedStatement(final String name, final String sql) {
-		QueryParser qp = cache.get(name);
+		QueryParser qp = namedStatements.get(name);
+		return (qp != null) ? qp : registerNamed(name, sql);
+	}
+
+	private static synchronized QueryParser registerNamed(final String name, final String sql) {
+		QueryParser qp = namedStatements.get(name);
 		if (qp == null) {
 			qp = new QueryParser(name, sql);
-			cache.cache(qp.getName(), qp);
+			namedStatements.put(name, qp);
+			namedBySql.putIfAbsent(sql, qp);
+			sqlCache.cache(sql, qp);
+		}
+		return qp;
+	}
+
+	// statement registered under the given name (e.g. by Warmup), null if unknown
+	public static QueryParser getNamedStatement(final String name) {
+		return namedStatements.get(name);
+	}
+
+	public static QueryParser registerPartitionStatement(final String name, final String sql) {
+		QueryParser qp = partitionCache.get(name);
+		if (qp == null || !qp.getOriginalSql().equals(sql)) {
+			qp = new QueryParser(name, sql);
+			partitionCache.cache(name, qp);
 		}
 		return qp;
 	}
 
 	public static QueryParser registerSqlStatement(final String sql) {
-		QueryParser qp = cache.get(QueryParser.queryId(sql));
+		QueryParser qp = sqlCache.get(sql);
+		if (qp == null) {
+			qp = register(sql);
+		}
+		return qp;
+	}
+
+	// slow path: hashed statement id, colliding ids get a suffix after full SQL comparison
+	private static synchronized QueryParser register(final String sql) {
+		QueryParser named = namedBySql.get(sql);
+		if (named != null) {
+			sqlCache.cache(sql, named);
+			return named;
+		}
+		String id = QueryParser.queryId(sql);
+		String name = id;
+		QueryParser qp = cache.get(name);
+		for (int n = 1; qp != null && !qp.getOriginalSql().equals(sql); n++) {
+			name = id + "-" + n;
+			qp = cache.get(name);
+		}
 		if (qp == null) {
-			qp = new QueryParser(sql);
-			cache.cache(qp.getName(), qp);
+			qp = new QueryParser(name, sql);
+			cache.cache(name, qp);
 		}
+		sqlCache.cache(sql, qp);
 		return qp;
 	}
 
@@ -15,9 +15,60 @@
  =============================================================================*/
 package eu.ts.jdbc.dsl.mapping;
 
-
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.Map;
 
-public class QueryClassMapperCache extends LRUCache<String, Map<Integer, ClassAttributeApplier>> {
+/**
+ * Row mappers by query shape: statement name, destination class and column mapping
+ */
+public class QueryClassMapperCache extends ConcurrentCache<QueryClassMapperCache.Key, RowMapper<?>> {
+
+	public final static class Key {
+		private final String queryName;
+		private final Class<?> clazz;
+		private final Map<String, String> columnMapping;
+		private final int hash;
+
+		private Key(String queryName, Class<?> clazz, Map<String, String> columnMapping) {
+			this.queryName = queryName;
+			this.clazz = clazz;
+			this.columnMapping = columnMapping;
+			this.hash = 31 * (31 * queryName.hashCode() + clazz.hashCode()) + columnMapping.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return hash == key.hash
+					&& clazz == key.clazz
+					&& queryName.equals(key.queryName)
+					&& columnMapping.equals(key.columnMapping);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
 
+	// cached mapper for the query shape, built from metadata on first use
+	@SuppressWarnings("unchecked")
+	public <T> RowMapper<T> mapper(String queryName, Class<T> clazz, Map<String, String> columnMapping,
+								   ResultSetMetaData rsmd) throws SQLException {
+		RowMapper<T> mapper = (RowMapper<T>) get(new Key(queryName, clazz, columnMapping));
+		if (mapper == null) {
+			mapper = RowMapper.build(rsmd, clazz, columnMapping);
+			// own copy of the mapping: callers may change theirs afterwards
+			cache(new Key(queryName, clazz, new HashMap<>(columnMapping)), mapper);
+		}
+		return mapper;
+	}
 }
@@ -17,59 +17,198 @@ package eu.ts.jdbc.dsl.mapping;
 
 
 import java.util.ArrayList;
-import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
+/**
+ * Immutable parsed statement: named parameters (:name) are replaced by JDBC placeholders.
+ * <p>
+ * SQL is scanned once at registration by a small lexer that skips string literals (Oracle q'[..]' quotes
+ * included), quoted identifiers, comments, "::" casts and ":=" assignments.
+ */
 public class QueryParser {
-	private final static Pattern parameterPattern = Pattern.compile("(:[a-zA-Z0-9]+)");
 
-	private String name;
+	private final String name;
 	private final String originalSql;
-	private String runnableSql;
-	private String[] parameters;
+	private final String runnableSql;
+
+	// parameter name of each placeholder
+	private final String[] parameters;
+	// distinct parameter names (first occurrence order) and placeholder -> distinct name index
+	private final String[] parameterNames;
+	private final int[] bindingPlan;
 
 
 	public QueryParser(String sql) {
-		this.name = queryId(sql);
-		this.originalSql = sql; // sqlClean(originalSql);
+		this(queryId(sql), sql);
 	}
 
 	public QueryParser(String name, String sql) {
 		this.name = name;
 		this.originalSql = sql; // sqlClean(originalSql);
+
+		List<String> paramsList = new ArrayList<>();
+		this.runnableSql = parseSql(sql, paramsList);
+		this.parameters = paramsList.toArray(new String[paramsList.size()]);
+
+		Map<String, Integer> distinct = new HashMap<>();
+		List<String> names = new ArrayList<>();
+		this.bindingPlan = new int[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			Integer index = distinct.get(parameters[i]);
+			if (index == null) {
+				index = names.size();
+				distinct.put(parameters[i], index);
+				names.add(parameters[i]);
+			}
+			bindingPlan[i] = index;
+		}
+		this.parameterNames = names.toArray(new String[names.size()]);
 	}
 
 
+	// 64 bit FNV-1a of the SQL text: not unique, QueryCache resolves collisions
 	public static String queryId(String sql) {
-		return UUID.nameUUIDFromBytes(sql.getBytes()).toString();
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < sql.length(); i++) {
+			hash ^= sql.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return Long.toHexString(hash);
 	}
 
 //	private String sqlClean(String originalSql) {
 //		return originalSql.replaceAll("\\s+", " ");
 //	}
 
-	private String parseSql(String sql) {
-		ArrayList<String> paramsList = new ArrayList<>();
-
-		StringBuilder outSql = new StringBuilder();
+	// single pass lexer: unchanged runs are copied as ranges, parameters become '?'
+	private static String parseSql(String sql, List<String> paramsList) {
+		final int length = sql.length();
+		StringBuilder outSql = new StringBuilder(length);
 		int lastOccurrence = 0;
-		Matcher m = parameterPattern.matcher(sql);
-
-		// catch parameters
-		while (m.find()) {
-			String param = sql.substring(m.start() + 1, m.end()); // skip initial ":"
-			paramsList.add(param);
-			outSql.append(sql.substring(lastOccurrence, m.start())).append('?');
-			lastOccurrence = m.end();
+
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			switch (c) {
+				case '\'':
+					i = skipQuoted(sql, i + 1, '\'');
+					break;
+				case '"':
+					i = skipQuoted(sql, i + 1, '"');
+					break;
+				case 'q':
+				case 'Q':
+					// Oracle alternative quoting q'<delim>...<delim>'
+					if (i + 2 < length && sql.charAt(i + 1) == '\'' && isAlternativeQuotePrefix(sql, i)) {
+						i = skipAlternativeQuoted(sql, i + 2);
+					} else {
+						i++;
+					}
+					break;
+				case '-':
+					if (i + 1 < length && sql.charAt(i + 1) == '-') {
+						int end = sql.indexOf('\n', i + 2);
+						i = (end < 0) ? length : end + 1;
+					} else {
+						i++;
+					}
+					break;
+				case '/':
+					if (i + 1 < length && sql.charAt(i + 1) == '*') {
+						int end = sql.indexOf("*/", i + 2);
+						i = (end < 0) ? length : end + 2;
+					} else {
+						i++;
+					}
+					break;
+				case ':':
+					if (i + 1 < length && (sql.charAt(i + 1) == ':' || sql.charAt(i + 1) == '=')) {
+						// "::" cast or ":=" assignment
+						i += 2;
+					} else if (i + 1 < length && isIdentifierPart(sql.charAt(i + 1))) {
+						int end = i + 2;
+						while (end < length && isIdentifierPart(sql.charAt(end))) {
+							end++;
+						}
+						paramsList.add(sql.substring(i + 1, end)); // skip initial ":"
+						outSql.append(sql, lastOccurrence, i).append('?');
+						lastOccurrence = end;
+						i = end;
+					} else {
+						i++;
+					}
+					break;
+				default:
+					i++;
+			}
 		}
-		outSql.append(sql.substring(lastOccurrence));
-		this.parameters = paramsList.toArray(new String[paramsList.size()]);
 
+		if (lastOccurrence == 0) {
+			return sql;
+		}
+		outSql.append(sql, lastOccurrence, length);
 		return outSql.toString();
 	}
 
+	// position after the closing quote ('' or "" are escapes)
+	private static int skipQuoted(String sql, int from, char quote) {
+		int i = from;
+		while (i < sql.length()) {
+			if (sql.charAt(i) == quote) {
+				if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+					i += 2;
+					continue;
+				}
+				return i + 1;
+			}
+			i++;
+		}
+		return sql.length();
+	}
+
+	private static int skipAlternativeQuoted(String sql, int from) {
+		char open = sql.charAt(from);
+		char close;
+		switch (open) {
+			case '[':
+				close = ']';
+				break;
+			case '{':
+				close = '}';
+				break;
+			case '(':
+				close = ')';
+				break;
+			case '<':
+				close = '>';
+				break;
+			default:
+				close = open;
+		}
+		for (int i = from + 1; i + 1 < sql.length(); i++) {
+			if (sql.charAt(i) == close && sql.charAt(i + 1) == '\'') {
+				return i + 2;
+			}
+		}
+		return sql.length();
+	}
+
+	// q (or nq) must start a token
+	private static boolean isAlternativeQuotePrefix(String sql, int q) {
+		if (q == 0 || !isIdentifierPart(sql.charAt(q - 1))) {
+			return true;
+		}
+		char prev = sql.charAt(q - 1);
+		return (prev == 'n' || prev == 'N') && (q == 1 || !isIdentifierPart(sql.charAt(q - 2)));
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
 
 	public String getName() {
 		return name;
@@ -80,13 +219,18 @@ public class QueryParser {
 	}
 
 	public String getRunnableSql() {
-		if (runnableSql == null) {
-			runnableSql = parseSql(this.originalSql);
-		}
 		return runnableSql;
 	}
 
 	public String[] getParameters() {
 		return parameters;
 	}
+
+	public String[] getParameterNames() {
+		return parameterNames;
+	}
+
+	public int[] getBindingPlan() {
+		return bindingPlan;
+	}
 }
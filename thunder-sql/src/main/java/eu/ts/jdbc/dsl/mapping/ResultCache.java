@@ -0,0 +1,205 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shared cache of query results (opt-in per query with a TTL).
+ * <p>
+ * Entries are keyed on DataSource (identity), statement name, bound parameter values, destination type and
+ * column mapping.
+ * Concurrent misses on the same key share a single database load.
+ */
+public class ResultCache {
+
+	private final static int DEFAULT_MAX_ENTRIES = 1000;
+
+	private static volatile ConcurrentCache<Key, Entry> cache = new ConcurrentCache<>(DEFAULT_MAX_ENTRIES);
+	private final static Map<Key, CompletableFuture<List<?>>> loading = new ConcurrentHashMap<>();
+
+	private final static LongAdder hits = new LongAdder();
+	private final static LongAdder misses = new LongAdder();
+	private final static LongAdder loads = new LongAdder();
+	private final static LongAdder loadNanos = new LongAdder();
+
+	private ResultCache() {
+		// will be a shared single instance
+	}
+
+
+	private final static class Key {
+		private final DataSource dataSource;
+		private final String queryName;
+		private final Map<String, Object> parameters;
+		private final Class<?> target;
+		private final Map<String, String> columnMapping;
+		private final int hash;
+
+		private Key(DataSource dataSource, String queryName, Map<String, Object> parameters, Class<?> target,
+					Map<String, String> columnMapping) {
+			this.dataSource = dataSource;
+			this.queryName = queryName;
+			this.parameters = parameters;
+			this.target = target;
+			this.columnMapping = columnMapping;
+			int h = System.identityHashCode(dataSource);
+			h = 31 * h + queryName.hashCode();
+			h = 31 * h + parameters.hashCode();
+			h = 31 * h + target.hashCode();
+			this.hash = 31 * h + columnMapping.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return hash == key.hash
+					&& dataSource == key.dataSource
+					&& target == key.target
+					&& queryName.equals(key.queryName)
+					&& parameters.equals(key.parameters)
+					&& columnMapping.equals(key.columnMapping);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private final static class Entry {
+		private final List<?> rows;
+		private final long expiresAt;
+
+		private Entry(List<?> rows, long expiresAt) {
+			this.rows = rows;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+
+	// Cached (read only) result, loading it once for concurrent misses
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> get(DataSource dataSource, String queryName, Map<String, Object> parameters,
+								  Class<?> target, Map<String, String> columnMapping, Duration ttl,
+								  Supplier<List<T>> loader) {
+		Key key = new Key(dataSource, queryName, parameters, target, columnMapping);
+
+		Entry entry = cache.get(key);
+		if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+			hits.increment();
+			return (List<T>) entry.rows;
+		}
+		misses.increment();
+
+		CompletableFuture<List<?>> load = new CompletableFuture<>();
+		CompletableFuture<List<?>> running = loading.putIfAbsent(key, load);
+		if (running != null) {
+			try {
+				return (List<T>) running.join();
+			} catch (CompletionException ex) {
+				throw (ex.getCause() instanceof RuntimeException)
+						? (RuntimeException) ex.getCause()
+						: ex;
+			}
+		}
+
+		try {
+			// a load may have completed between the cache lookup and the registration
+			entry = cache.get(key);
+			if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+				load.complete(entry.rows);
+				return (List<T>) entry.rows;
+			}
+
+			long start = System.nanoTime();
+			List<T> rows = Collections.unmodifiableList(loader.get());
+			long end = System.nanoTime();
+			loads.increment();
+			loadNanos.add(end - start);
+
+			cache.cache(key, new Entry(rows, end + ttl.toNanos()));
+			load.complete(rows);
+			return rows;
+		} catch (RuntimeException ex) {
+			load.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			loading.remove(key, load);
+		}
+	}
+
+
+	public static void invalidate(final String queryName) {
+		cache.invalidateIf(key -> key.queryName.equals(queryName));
+	}
+
+	public static void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	// new bound for cached entries (current entries are dropped)
+	public static void configure(int maxEntries) {
+		cache = new ConcurrentCache<>(maxEntries);
+	}
+
+
+	public static int size() {
+		return cache.size();
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static long getLoadCount() {
+		return loads.sum();
+	}
+
+	public static long getEvictionCount() {
+		return cache.getEvictionCount();
+	}
+
+	public static double getAverageLoadMillis() {
+		long count = loads.sum();
+		return (count == 0) ? 0.0 : loadNanos.sum() / 1_000_000.0 / count;
+	}
+
+	public static String statistics() {
+		return String.format("ResultCache[size=%d, hits=%d, misses=%d, loads=%d, avgLoad=%.3fms, evictions=%d]",
+				size(), getHitCount(), getMissCount(), getLoadCount(), getAverageLoadMillis(), getEvictionCount()
+		);
+	}
+}
@@ -0,0 +1,304 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary format of mapped objects (spilled results).
+ * <p>
+ * Fields are written in declared order: primitives raw, reference types behind a one byte null flag,
+ * strings and byte arrays length prefixed. Encoding reuses one growing buffer: an instance must not be
+ * shared by writer threads, decoding is stateless.
+ *
+ * @param <T>
+ */
+public final class RowCodec<T> {
+
+	private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private interface ValueCodec {
+		void write(Object value, RowCodec<?> out);
+
+		Object read(ByteBuffer in);
+	}
+
+	private final Class<T> clazz;
+	private final MethodHandle[] getters;
+	private final ValueCodec[] codecs;
+	private final boolean[] primitive;
+
+	// bean path
+	private final Supplier<T> factory;
+	private final MethodHandle[] setters;
+
+	// immutable path: field index of each creator parameter
+	private final ObjectCreator creator;
+	private final int[] parameterFields;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+	private RowCodec(Class<T> clazz) {
+		this.clazz = clazz;
+
+		List<Field> fields = new ArrayList<>();
+		for (Field field : clazz.getDeclaredFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+				fields.add(field);
+			}
+		}
+
+		int size = fields.size();
+		getters = new MethodHandle[size];
+		codecs = new ValueCodec[size];
+		primitive = new boolean[size];
+		creator = ObjectCreator.find(clazz);
+		setters = (creator == null) ? new MethodHandle[size] : null;
+
+		try {
+			for (int i = 0; i < size; i++) {
+				Field field = fields.get(i);
+				field.setAccessible(true);
+				getters[i] = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+				if (setters != null) {
+					setters[i] = LOOKUP.unreflectSetter(field)
+							.asType(MethodType.methodType(void.class, Object.class, Object.class));
+				}
+				primitive[i] = field.getType().isPrimitive();
+				codecs[i] = codec(field);
+			}
+		} catch (IllegalAccessException ex) {
+			throw new RuntimeException("Unable to access fields of: " + clazz.getName(), ex);
+		}
+
+		if (creator == null) {
+			factory = ApplierFactory.instanceFactory(clazz);
+			parameterFields = null;
+		} else {
+			factory = null;
+			String[] names = creator.getNames();
+			parameterFields = new int[names.length];
+			Arrays.fill(parameterFields, -1);
+			for (int p = 0; p < names.length; p++) {
+				for (int i = 0; i < size; i++) {
+					if (fields.get(i).getName().equalsIgnoreCase(names[p])) {
+						parameterFields[p] = i;
+					}
+				}
+			}
+		}
+	}
+
+	// fails on field types without binary format
+	public static <T> RowCodec<T> of(final Class<T> clazz) {
+		return new RowCodec<>(clazz);
+	}
+
+
+	// encoded row, valid until next call (position 0, limit at row end)
+	public ByteBuffer encode(T pojo) {
+		buffer.clear();
+		try {
+			for (int i = 0; i < codecs.length; i++) {
+				Object value = (Object) getters[i].invokeExact((Object) pojo);
+				if (!primitive[i]) {
+					ensure(1);
+					buffer.put((byte) (value == null ? 0 : 1));
+					if (value == null) {
+						continue;
+					}
+				}
+				codecs[i].write(value, this);
+			}
+		} catch (Throwable ex) {
+			throw new RuntimeException("Unable to encode: " + clazz.getName(), ex);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	// decode a row starting at the buffer position
+	@SuppressWarnings("unchecked")
+	public T decode(ByteBuffer in) {
+		Object[] values = new Object[codecs.length];
+		for (int i = 0; i < codecs.length; i++) {
+			if (primitive[i] || in.get() != 0) {
+				values[i] = codecs[i].read(in);
+			}
+		}
+
+		if (creator != null) {
+			Object[] args = new Object[parameterFields.length];
+			for (int p = 0; p < args.length; p++) {
+				args[p] = (parameterFields[p] < 0) ? null : values[parameterFields[p]];
+			}
+			return (T) creator.newInstance(args);
+		}
+
+		T pojo = factory.get();
+		try {
+			for (int i = 0; i < setters.length; i++) {
+				if (values[i] != null) {
+					setters[i].invokeExact((Object) pojo, values[i]);
+				}
+			}
+		} catch (Throwable ex) {
+			throw new RuntimeException("Unable to decode: " + clazz.getName(), ex);
+		}
+		return pojo;
+	}
+
+
+	private void ensure(int bytes) {
+		if (buffer.remaining() < bytes) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+	}
+
+	private void putBytes(byte[] bytes) {
+		ensure(4 + bytes.length);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private static byte[] getBytes(ByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return bytes;
+	}
+
+	private static ValueCodec codec(Field field) {
+		Class<?> type = field.getType();
+
+		if (type == int.class || type == Integer.class)
+			return codec((v, out) -> out.buffer.putInt((Integer) v), 4, ByteBuffer::getInt);
+		if (type == long.class || type == Long.class)
+			return codec((v, out) -> out.buffer.putLong((Long) v), 8, ByteBuffer::getLong);
+		if (type == double.class || type == Double.class)
+			return codec((v, out) -> out.buffer.putDouble((Double) v), 8, ByteBuffer::getDouble);
+		if (type == float.class || type == Float.class)
+			return codec((v, out) -> out.buffer.putFloat((Float) v), 4, ByteBuffer::getFloat);
+		if (type == short.class || type == Short.class)
+			return codec((v, out) -> out.buffer.putShort((Short) v), 2, ByteBuffer::getShort);
+		if (type == byte.class || type == Byte.class)
+			return codec((v, out) -> out.buffer.put((Byte) v), 1, ByteBuffer::get);
+		if (type == boolean.class || type == Boolean.class)
+			return codec((v, out) -> out.buffer.put((byte) ((Boolean) v ? 1 : 0)), 1, in -> in.get() != 0);
+		if (type == char.class || type == Character.class)
+			return codec((v, out) -> out.buffer.putChar((Character) v), 2, ByteBuffer::getChar);
+		if (type == Timestamp.class)
+			return codec((v, out) -> {
+				out.buffer.putLong(((Timestamp) v).getTime());
+				out.buffer.putInt(((Timestamp) v).getNanos());
+			}, 12, in -> {
+				Timestamp ts = new Timestamp(in.getLong());
+				ts.setNanos(in.getInt());
+				return ts;
+			});
+		if (type == Date.class)
+			return codec((v, out) -> out.buffer.putLong(((Date) v).getTime()), 8, in -> new Date(in.getLong()));
+		if (type == Time.class)
+			return codec((v, out) -> out.buffer.putLong(((Time) v).getTime()), 8, in -> new Time(in.getLong()));
+		if (type == LocalDate.class)
+			return codec((v, out) -> out.buffer.putLong(((LocalDate) v).toEpochDay()), 8,
+					in -> LocalDate.ofEpochDay(in.getLong()));
+		if (type == LocalDateTime.class)
+			return codec((v, out) -> {
+				out.buffer.putLong(((LocalDateTime) v).toEpochSecond(ZoneOffset.UTC));
+				out.buffer.putInt(((LocalDateTime) v).getNano());
+			}, 12, in -> LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC));
+
+		// variable length
+		if (type == String.class)
+			return new ValueCodec() {
+				public void write(Object value, RowCodec<?> out) {
+					out.putBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+				}
+
+				public Object read(ByteBuffer in) {
+					return new String(getBytes(in), StandardCharsets.UTF_8);
+				}
+			};
+		if (type == byte[].class)
+			return new ValueCodec() {
+				public void write(Object value, RowCodec<?> out) {
+					out.putBytes((byte[]) value);
+				}
+
+				public Object read(ByteBuffer in) {
+					return getBytes(in);
+				}
+			};
+		if (type == BigDecimal.class)
+			return new ValueCodec() {
+				public void write(Object value, RowCodec<?> out) {
+					out.putBytes(((BigDecimal) value).unscaledValue().toByteArray());
+					out.ensure(4);
+					out.buffer.putInt(((BigDecimal) value).scale());
+				}
+
+				public Object read(ByteBuffer in) {
+					BigInteger unscaled = new BigInteger(getBytes(in));
+					return new BigDecimal(unscaled, in.getInt());
+				}
+			};
+
+		throw new RuntimeException("Unable to spill field '" + field.getName() + "' of type: " + type.getName());
+	}
+
+	private interface Writer {
+		void write(Object value, RowCodec<?> out);
+	}
+
+	private interface Reader {
+		Object read(ByteBuffer in);
+	}
+
+	// fixed size value
+	private static ValueCodec codec(Writer writer, int bytes, Reader reader) {
+		return new ValueCodec() {
+			public void write(Object value, RowCodec<?> out) {
+				out.ensure(bytes);
+				writer.write(value, out);
+			}
+
+			public Object read(ByteBuffer in) {
+				return reader.read(in);
+			}
+		};
+	}
+}
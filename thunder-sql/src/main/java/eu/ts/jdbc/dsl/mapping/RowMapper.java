@@ -0,0 +1,193 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import eu.ts.jdbc.dsl.ResultSetHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Specialized row mapper built once per query shape and destination class
+ *
+ * @param <T>
+ */
+public final class RowMapper<T> implements ResultSetHandler<T> {
+	private final static Logger log = LoggerFactory.getLogger(RowMapper.class);
+
+	// compile time mappers by class, NONE when not generated
+	private final static ConcurrentCache<Class<?>, GeneratedRowMapper<?>> generatedCache = new ConcurrentCache<>();
+	private final static GeneratedRowMapper<?> NONE = new GeneratedRowMapper<Object>() {
+		@Override
+		public int attribute(String name) {
+			return 0;
+		}
+
+		@Override
+		public GeneratedRowMapper<Object> bind(int[] attributes) {
+			return this;
+		}
+
+		@Override
+		public Object handle(ResultSet rs) {
+			return null;
+		}
+	};
+
+	private final Supplier<T> factory;
+	private final ClassAttributeApplier[] appliers;
+	private final ResultSetHandler<T> creator;
+
+	private RowMapper(Supplier<T> factory, ClassAttributeApplier[] appliers, ResultSetHandler<T> creator) {
+		this.factory = factory;
+		this.appliers = appliers;
+		this.creator = creator;
+	}
+
+	// default constructor, annotated or resolvable constructor/factory: fails otherwise
+	public static void checkMappable(Class<?> clazz) {
+		if (clazz == null) {
+			throw new RuntimeException("Unable to fetch null resultSet class");
+		}
+		if (generated(clazz) == null) {
+			ObjectCreator.find(clazz);
+		}
+	}
+
+	// composing binding mapper from ResultSet metadata
+	public static <T> RowMapper<T> build(ResultSetMetaData rsmd, Class<T> clazz, Map<String, String> columnMapping)
+			throws SQLException {
+		GeneratedRowMapper<T> generated = generated(clazz);
+		if (generated != null) {
+			return build(rsmd, clazz, columnMapping, generated);
+		}
+
+		ObjectCreator creator = ObjectCreator.find(clazz);
+		if (creator != null) {
+			return build(rsmd, clazz, columnMapping, creator);
+		}
+
+		Map<String, Field> destPojo = ClassExplorer.build(clazz).getFields();
+
+		List<ClassAttributeApplier> appliers = new ArrayList<>();
+		for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+			String columnName = rsmd.getColumnLabel(i).toLowerCase();
+			String mappedField = columnMapping.get(columnName);
+			mappedField = (mappedField == null) ? columnName : mappedField;
+			Field classField = destPojo.get(mappedField);
+			if (classField != null) {
+				appliers.add(ApplierFactory.build(classField, i));
+			} else {
+				log.warn("Unable to map '{}' to class '{}'",
+						rsmd.getColumnLabel(i), clazz.getName()
+				);
+			}
+		}
+
+		return new RowMapper<>(
+				ApplierFactory.instanceFactory(clazz),
+				appliers.toArray(new ClassAttributeApplier[appliers.size()]),
+				null
+		);
+	}
+
+	// immutable target: columns matched to constructor parameters once, instance created per row
+	private static <T> RowMapper<T> build(ResultSetMetaData rsmd, Class<T> clazz, Map<String, String> columnMapping,
+										  ObjectCreator creator) throws SQLException {
+		String[] names = creator.getNames();
+		int[] columns = new int[names.length];
+		for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+			String columnName = rsmd.getColumnLabel(i).toLowerCase();
+			String mappedField = columnMapping.get(columnName);
+			mappedField = (mappedField == null) ? columnName : mappedField;
+			int param = Arrays.asList(names).indexOf(mappedField);
+			if (param >= 0 && columns[param] == 0) {
+				columns[param] = i;
+			} else {
+				log.warn("Unable to map '{}' to class '{}'",
+						rsmd.getColumnLabel(i), clazz.getName()
+				);
+			}
+		}
+		for (int i = 0; i < names.length; i++) {
+			if (columns[i] == 0) {
+				log.warn("No column for parameter '{}' of class '{}'", names[i], clazz.getName());
+			}
+		}
+
+		return new RowMapper<>(null, null, creator.bind(columns));
+	}
+
+	// compile time mapper: only the column to attribute resolution is left for runtime
+	private static <T> RowMapper<T> build(ResultSetMetaData rsmd, Class<T> clazz, Map<String, String> columnMapping,
+										  GeneratedRowMapper<T> generated) throws SQLException {
+		int[] attributes = new int[rsmd.getColumnCount()];
+		for (int i = 1; i <= attributes.length; i++) {
+			String columnName = rsmd.getColumnLabel(i).toLowerCase();
+			String mappedField = columnMapping.get(columnName);
+			attributes[i - 1] = generated.attribute((mappedField == null) ? columnName : mappedField);
+			if (attributes[i - 1] == 0) {
+				log.warn("Unable to map '{}' to class '{}'",
+						rsmd.getColumnLabel(i), clazz.getName()
+				);
+			}
+		}
+		return new RowMapper<>(null, null, generated.bind(attributes));
+	}
+
+	// generated <Class>_RowMapper of a @GenerateRowMapper class, null otherwise
+	@SuppressWarnings("unchecked")
+	private static <T> GeneratedRowMapper<T> generated(Class<T> clazz) {
+		if (!clazz.isAnnotationPresent(GenerateRowMapper.class)) {
+			return null;
+		}
+		GeneratedRowMapper<?> generated = generatedCache.get(clazz);
+		if (generated == null) {
+			try {
+				Class<?> mapperClass = Class.forName(clazz.getName().replace('$', '_') + "_RowMapper", true,
+						clazz.getClassLoader());
+				generated = (GeneratedRowMapper<?>) mapperClass.getConstructor().newInstance();
+			} catch (ReflectiveOperationException ex) {
+				log.warn("No generated row mapper for '{}' (annotation processor not run?): mapping reflectively",
+						clazz.getName());
+				generated = NONE;
+			}
+			generatedCache.cache(clazz, generated);
+		}
+		return (generated == NONE) ? null : (GeneratedRowMapper<T>) generated;
+	}
+
+	@Override
+	public T handle(ResultSet rs) throws Exception {
+		if (creator != null) {
+			return creator.handle(rs);
+		}
+		T retObj = factory.get();
+		for (ClassAttributeApplier applier : appliers) {
+			applier.apply(retObj, rs);
+		}
+		return retObj;
+	}
+}
@@ -0,0 +1,169 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.metrics;
+
+import eu.ts.jdbc.dsl.mapping.ConcurrentCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per statement (QueryParser name) latency histograms and slow query log, disabled until enable().
+ * <p>
+ * Recording is a map lookup, a few nanoTime reads and atomic increments: no allocation per execution.
+ * Statements are kept in a bounded cache like the statement registry: rarely run ones may be evicted.
+ * Slow queries are logged on "eu.ts.jdbc.dsl.metrics.SlowQueries" with parameter values redacted.
+ */
+public final class QueryMetrics {
+	private final static Logger slowLog = LoggerFactory.getLogger("eu.ts.jdbc.dsl.metrics.SlowQueries");
+	private final static Logger log = LoggerFactory.getLogger(QueryMetrics.class);
+
+	private final static ConcurrentCache<String, StatementMetrics> statements = new ConcurrentCache<>();
+
+	private static volatile boolean enabled = false;
+	private static volatile long slowThresholdNanos = Long.MAX_VALUE;
+	private static ScheduledExecutorService scheduler = null;
+
+	// will not be instantiated
+	private QueryMetrics() {
+	}
+
+
+	public static void enable() {
+		enabled = true;
+	}
+
+	public static void disable() {
+		enabled = false;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	// fetches slower than threshold (acquire to last row) are logged, null disables the log
+	public static void slowQueryThreshold(final Duration threshold) {
+		slowThresholdNanos = (threshold == null) ? Long.MAX_VALUE : threshold.toNanos();
+	}
+
+
+	// metrics of the statement, null while disabled
+	public static StatementMetrics forStatement(final String name, final String sql) {
+		if (!enabled) {
+			return null;
+		}
+		StatementMetrics metrics = statements.get(name);
+		if (metrics == null) {
+			synchronized (statements) {
+				metrics = statements.get(name);
+				if (metrics == null) {
+					metrics = new StatementMetrics(name, sql);
+					statements.cache(name, metrics);
+				}
+			}
+		}
+		return metrics;
+	}
+
+	// end of a full fetch: timestamps from System.nanoTime (firstRow 0 when unknown)
+	public static void completed(final StatementMetrics metrics, final long start, final long executed,
+								 final long firstRow, final long end, final long rows, final String[] parameterNames) {
+		if (firstRow != 0) {
+			metrics.getFirstRow().record(firstRow - executed);
+		}
+		metrics.getFetch().record(end - start);
+		metrics.getRows().record(rows);
+
+		if (end - start > slowThresholdNanos) {
+			metrics.slow();
+			if (slowLog.isWarnEnabled()) {
+				slowLog.warn("Slow query '{}' took {} ms ({} rows): {}{}",
+						metrics.getName(), TimeUnit.NANOSECONDS.toMillis(end - start), rows,
+						metrics.getSql(), redacted(parameterNames));
+			}
+		}
+	}
+
+	public static void failed(final StatementMetrics metrics) {
+		metrics.error();
+	}
+
+
+	// read only view by statement name (live metrics, statements cached at call time)
+	public static Map<String, StatementMetrics> snapshot() {
+		return Collections.unmodifiableMap(statements.getMap());
+	}
+
+	// pull
+	public static void export(final MetricsExporter exporter) {
+		exporter.export(Collections.unmodifiableCollection(statements.getMap().values()));
+	}
+
+	// push on a daemon thread, replaces the previous schedule
+	public static synchronized void schedule(final MetricsExporter exporter, final Duration period) {
+		stopExport();
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "query-metrics-export");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				export(exporter);
+			} catch (RuntimeException ex) {
+				log.warn("Metrics export failed", ex);
+			}
+		}, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	public static synchronized void stopExport() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	public static void reset() {
+		statements.invalidateAll();
+	}
+
+	public static String statistics() {
+		StringBuilder sb = new StringBuilder("QueryMetrics[enabled=").append(enabled);
+		for (StatementMetrics metrics : new TreeMap<>(statements.getMap()).values()) {
+			sb.append("\n  ").append(metrics);
+		}
+		return sb.append(']').toString();
+	}
+
+
+	private static String redacted(String[] parameterNames) {
+		if (parameterNames == null || parameterNames.length == 0) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder(" [");
+		for (int i = 0; i < parameterNames.length; i++) {
+			sb.append((i == 0) ? ":" : ", :").append(parameterNames[i]).append("=?");
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,112 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings (nanoseconds) and row counts of one statement
+ */
+public final class StatementMetrics {
+
+	private final String name;
+	private final String sql;
+
+	private final LatencyHistogram acquire = new LatencyHistogram();
+	private final LatencyHistogram execute = new LatencyHistogram();
+	private final LatencyHistogram firstRow = new LatencyHistogram();
+	private final LatencyHistogram fetch = new LatencyHistogram();
+	private final LatencyHistogram rows = new LatencyHistogram();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong slowQueries = new AtomicLong();
+
+	StatementMetrics(String name, String sql) {
+		this.name = name;
+		this.sql = sql;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	// connection borrow
+	public LatencyHistogram getAcquire() {
+		return acquire;
+	}
+
+	// parameter binding and executeQuery
+	public LatencyHistogram getExecute() {
+		return execute;
+	}
+
+	// executeQuery start to first row read
+	public LatencyHistogram getFirstRow() {
+		return firstRow;
+	}
+
+	// acquire start to last row read (mapping included)
+	public LatencyHistogram getFetch() {
+		return fetch;
+	}
+
+	public LatencyHistogram getRows() {
+		return rows;
+	}
+
+	// failed executions (connection, binding or executeQuery)
+	public long getErrors() {
+		return errors.get();
+	}
+
+	public long getSlowQueries() {
+		return slowQueries.get();
+	}
+
+	void error() {
+		errors.incrementAndGet();
+	}
+
+	void slow() {
+		slowQueries.incrementAndGet();
+	}
+
+	public void reset() {
+		acquire.reset();
+		execute.reset();
+		firstRow.reset();
+		fetch.reset();
+		rows.reset();
+		errors.set(0);
+		slowQueries.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[executions=%d, acquireP99=%dus, executeP99=%dus, firstRowP99=%dus, fetchP99=%dus, " +
+						"rowsMean=%.1f, errors=%d, slow=%d]",
+				name, fetch.getCount(),
+				TimeUnit.NANOSECONDS.toMicros(acquire.getPercentile(0.99)),
+				TimeUnit.NANOSECONDS.toMicros(execute.getPercentile(0.99)),
+				TimeUnit.NANOSECONDS.toMicros(firstRow.getPercentile(0.99)),
+				TimeUnit.NANOSECONDS.toMicros(fetch.getPercentile(0.99)),
+				rows.getMean(), errors.get(), slowQueries.get());
+	}
+}
@@ -19,11 +19,22 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import javax.sql.DataSource;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
 
 
 public abstract class ConnectionPool {
+	protected final static String DEFAULT_MIN_POOL = "2";
+	protected final static String DEFAULT_MAX_POOL = "5";
+	protected final static String DEFAULT_IDLE_TIMEOUT = "60000";
+
+	protected final static String DATASOURCE_PROPS_PREFIX = "datasource.property";
+
 	protected final String poolType;
 
 	protected HikariConfig poolConfig;
@@ -45,6 +56,45 @@ public abstract class ConnectionPool {
 		}
 	}
 
+	// Load external properties
+	protected static Properties loadProperties(String configFileName) throws IOException {
+		Properties props = new Properties();
+		try (FileInputStream in = new FileInputStream(configFileName)) {
+			props.load(in);
+		}
+		return props;
+	}
+
+	// remove "datasource.property.*" keys returning them without prefix
+	protected static Properties extractDataSourceProperties(Properties hikariProps) {
+		Set<String> props = new HashSet<>();
+		for (Object key : hikariProps.keySet()) {
+			if (key.toString().toLowerCase().startsWith(DATASOURCE_PROPS_PREFIX)) {
+				props.add(key.toString());
+			}
+		}
+
+		// copying keys from original Properties
+		Properties pp = new Properties();
+		for (String key : props) {
+			pp.put(key.substring(DATASOURCE_PROPS_PREFIX.length() + 1), hikariProps.remove(key));
+		}
+		return pp;
+	}
+
+	// remove a non Hikari key, returning its value or the given default
+	protected static String removeProperty(Properties hikariProps, String key, String defaultValue) {
+		Object value = hikariProps.remove(key);
+		return (value == null) ? defaultValue : value.toString();
+	}
+
+	protected static void applyPoolDefaults(HikariConfig poolConfig, Properties hikariProps) {
+		poolConfig.setMinimumIdle(Integer.parseInt(hikariProps.getProperty("minimumIdle", DEFAULT_MIN_POOL)));
+		poolConfig.setMaximumPoolSize(Integer.parseInt(hikariProps.getProperty("maximumPoolSize", DEFAULT_MAX_POOL)));
+		poolConfig.setIdleTimeout(Long.parseLong(hikariProps.getProperty("idleTimeout", DEFAULT_IDLE_TIMEOUT)));
+	}
+
+
 	public DataSource getDataSource() {
 		return poolDs;
 	}
@@ -0,0 +1,250 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.pool;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of PreparedStatements per physical connection, keyed by statement name.
+ * <p>
+ * Statements are prepared on the unwrapped driver connection so that they survive the pool proxy
+ * being returned; a statement is checked out while in use, so two open queries never share it.
+ * Caches of connections closed by the pool (evicted/retired) are dropped, closing their statements.
+ */
+public class StatementCache {
+
+	// DataSource -> max statements per connection (not configured means disabled)
+	private final static Map<DataSource, Integer> configuration = new ConcurrentHashMap<>();
+	private final static Map<Connection, StatementCache> caches = new ConcurrentHashMap<>();
+
+	private final static LongAdder hits = new LongAdder();
+	private final static LongAdder misses = new LongAdder();
+	private final static LongAdder evictions = new LongAdder();
+
+	private final Connection physical;
+	private final LinkedHashMap<String, PreparedStatement> statements;
+	private final Map<String, Integer> fetchSizes = new HashMap<>();
+
+
+	private StatementCache(Connection physical, final int maxStatements) {
+		this.physical = physical;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(maxStatements * 4 / 3, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > maxStatements) {
+					closeQuietly(eldest.getValue());
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+
+	// enable statement caching for connections of the given DataSource (0 disables)
+	public static void configure(DataSource dataSource, int maxStatementsPerConnection) {
+		if (maxStatementsPerConnection > 0) {
+			configuration.put(dataSource, maxStatementsPerConnection);
+		} else {
+			configuration.remove(dataSource);
+		}
+	}
+
+	public static boolean isEnabled(DataSource dataSource) {
+		return configuration.containsKey(dataSource);
+	}
+
+
+	// cached statement if available, freshly prepared otherwise
+	public static PreparedStatement prepare(DataSource dataSource, Connection connection, String name, String sql)
+			throws SQLException {
+		Integer maxStatements = configuration.get(dataSource);
+		if (maxStatements == null) {
+			return connection.prepareStatement(sql);
+		}
+
+		StatementCache cache = forConnection(physical(connection), maxStatements);
+		PreparedStatement ps = cache.take(name);
+		if (ps != null) {
+			hits.increment();
+			return ps;
+		}
+		misses.increment();
+		ps = cache.physical.prepareStatement(sql);
+		cache.rememberFetchSize(name, ps.getFetchSize());
+		return ps;
+	}
+
+	// give the statement back to its connection cache (or close it when caching is disabled)
+	public static void release(DataSource dataSource, Connection connection, String name, PreparedStatement ps) {
+		Integer maxStatements = configuration.get(dataSource);
+		try {
+			if (maxStatements == null || ps.isClosed()) {
+				closeQuietly(ps);
+				return;
+			}
+			ps.clearParameters();
+			// rows left by a failed batch
+			ps.clearBatch();
+			StatementCache cache = forConnection(physical(connection), maxStatements);
+			cache.restoreFetchSize(name, ps);
+			cache.put(name, ps);
+		} catch (SQLException ex) {
+			closeQuietly(ps);
+		}
+	}
+
+
+	// statements run on the driver connection bypass the pool proxy dirty tracking, so the pool would not roll back
+	// what they left open: to be called before an autoCommit off connection is given back
+	public static void rollbackBeforeRelease(DataSource dataSource, Connection connection) {
+		if (!configuration.containsKey(dataSource)) {
+			return;
+		}
+		try {
+			if (!connection.isClosed() && !connection.getAutoCommit()) {
+				connection.rollback();
+			}
+		} catch (SQLException ignored) { /* the pool checks the connection anyway */ }
+	}
+
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public static int getCachedStatementCount() {
+		int count = 0;
+		for (StatementCache cache : caches.values()) {
+			count += cache.size();
+		}
+		return count;
+	}
+
+	public static String statistics() {
+		return String.format("StatementCache[connections=%d, statements=%d, hits=%d, misses=%d, evictions=%d]",
+				caches.size(), getCachedStatementCount(), getHitCount(), getMissCount(), getEvictionCount()
+		);
+	}
+
+
+	private synchronized PreparedStatement take(String name) throws SQLException {
+		PreparedStatement ps = statements.remove(name);
+		if (ps != null && ps.isClosed()) {
+			return null;
+		}
+		return ps;
+	}
+
+	private synchronized void put(String name, PreparedStatement ps) {
+		PreparedStatement previous = statements.put(name, ps);
+		if (previous != null && previous != ps) {
+			closeQuietly(previous);
+		}
+	}
+
+	// fetch size as prepared (driver or DataSource default), given back to reused statements
+	private synchronized void rememberFetchSize(String name, int fetchSize) {
+		fetchSizes.put(name, fetchSize);
+	}
+
+	private void restoreFetchSize(String name, PreparedStatement ps) throws SQLException {
+		Integer fetchSize;
+		synchronized (this) {
+			fetchSize = fetchSizes.get(name);
+		}
+		if (fetchSize != null && ps.getFetchSize() != fetchSize) {
+			ps.setFetchSize(fetchSize);
+		}
+	}
+
+	private synchronized int size() {
+		return statements.size();
+	}
+
+	private synchronized void invalidate() {
+		for (PreparedStatement ps : statements.values()) {
+			closeQuietly(ps);
+		}
+		statements.clear();
+	}
+
+
+	private static StatementCache forConnection(Connection physical, int maxStatements) throws SQLException {
+		StatementCache cache = caches.get(physical);
+		if (cache == null) {
+			// a new physical connection usually replaces an evicted one
+			sweepClosedConnections();
+			cache = new StatementCache(physical, maxStatements);
+			StatementCache previous = caches.putIfAbsent(physical, cache);
+			if (previous != null) {
+				cache = previous;
+			}
+		}
+		return cache;
+	}
+
+	private static void sweepClosedConnections() {
+		Iterator<StatementCache> it = caches.values().iterator();
+		while (it.hasNext()) {
+			StatementCache cache = it.next();
+			boolean closed;
+			try {
+				closed = cache.physical.isClosed();
+			} catch (SQLException ex) {
+				closed = true;
+			}
+			if (closed) {
+				it.remove();
+				cache.invalidate();
+			}
+		}
+	}
+
+	// driver connection behind the pool proxy
+	private static Connection physical(Connection connection) {
+		try {
+			if (connection.isWrapperFor(Connection.class)) {
+				return connection.unwrap(Connection.class);
+			}
+		} catch (SQLException ignored) { /* not a wrapper */ }
+		return connection;
+	}
+
+	private static void closeQuietly(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException ignored) { /* ignored */ }
+	}
+}
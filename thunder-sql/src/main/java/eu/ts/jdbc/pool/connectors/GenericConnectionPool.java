@@ -0,0 +1,117 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.pool.connectors;
+
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import eu.ts.jdbc.pool.ConnectionPool;
+import eu.ts.jdbc.pool.StatementCache;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Vendor neutral connection pool on any JDBC driver (same configuration file of {@link OracleConnectionPool}).
+ * <p>
+ * The vendor preset is detected from datasource.url or forced with datasource.vendor
+ * (ORACLE, POSTGRESQL, MYSQL, H2, HSQLDB, GENERIC).
+ */
+public class GenericConnectionPool extends ConnectionPool {
+
+	private final VendorPreset preset;
+
+
+	// CP Name from configuration file
+	public GenericConnectionPool(String configFileName) throws Exception {
+		this(null, configFileName);
+	}
+
+	public GenericConnectionPool(String poolName, String configFileName) throws Exception {
+		this(poolName, loadProperties(configFileName));
+	}
+
+	public GenericConnectionPool(String poolName, Properties configuration) {
+		super("GenericCP");
+		Properties hikariProps = new Properties();
+		hikariProps.putAll(configuration);
+
+		String url = removeProperty(hikariProps, "datasource.url", null);
+		if (url == null) {
+			throw new RuntimeException(String.format("PoolType: %s - missing datasource.url", poolType));
+		}
+		String vendor = removeProperty(hikariProps, "datasource.vendor", null);
+		this.preset = (vendor == null) ? VendorPreset.fromUrl(url) : VendorPreset.valueOf(vendor.toUpperCase());
+
+		String user = removeProperty(hikariProps, "datasource.user", null);
+		String password = removeProperty(hikariProps, "datasource.password", null);
+
+		// preset driver tuning overridden by specific Datasource properties
+		Properties pp = preset.getDataSourceProperties();
+		pp.putAll(extractDataSourceProperties(hikariProps));
+
+		// Statements cached per physical connection (not an Hikari property)
+		int maxStatements = Integer.parseInt(
+				removeProperty(hikariProps, "statementCacheSize", String.valueOf(preset.getStatementCacheSize()))
+		);
+
+		// Load remaining properties to Hikari
+		poolConfig = new HikariConfig(hikariProps);
+		poolConfig.setJdbcUrl(url);
+		if (user != null) {
+			poolConfig.setUsername(user);
+		}
+		if (password != null) {
+			poolConfig.setPassword(password);
+		}
+		for (Map.Entry<Object, Object> entry : pp.entrySet()) {
+			poolConfig.addDataSourceProperty(entry.getKey().toString(), entry.getValue());
+		}
+
+		applyPoolDefaults(poolConfig, hikariProps);
+		poolConfig.setAutoCommit(Boolean.parseBoolean(hikariProps.getProperty("autoCommit", "false")));
+
+		if (poolName != null) {
+			poolConfig.setPoolName(poolName);
+		}
+
+		// Build of Connection Pool
+		this.poolDs = new HikariDataSource(poolConfig);
+		StatementCache.configure(poolDs, maxStatements);
+
+		super.check();
+	}
+
+
+	// In memory H2 database living until the JVM exits (local load tests, CI benchmarks)
+	public static GenericConnectionPool embeddedH2(String databaseName) {
+		return embeddedH2(databaseName, new Properties());
+	}
+
+	public static GenericConnectionPool embeddedH2(String databaseName, Properties configuration) {
+		Properties props = new Properties();
+		props.putAll(configuration);
+		props.setProperty("datasource.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+		props.putIfAbsent("datasource.user", "sa");
+		props.putIfAbsent("datasource.password", "");
+		return new GenericConnectionPool(databaseName, props);
+	}
+
+
+	public VendorPreset getPreset() {
+		return preset;
+	}
+}
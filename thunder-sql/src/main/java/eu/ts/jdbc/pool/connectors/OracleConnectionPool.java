@@ -19,21 +19,15 @@ package eu.ts.jdbc.pool.connectors;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import eu.ts.jdbc.pool.ConnectionPool;
+import eu.ts.jdbc.pool.StatementCache;
 import oracle.jdbc.pool.OracleDataSource;
 
-import java.io.FileInputStream;
-import java.util.HashSet;
 import java.util.Properties;
-import java.util.Set;
 
 
 public class OracleConnectionPool extends ConnectionPool {
 
-	private final static String DEFAULT_MIN_POOL = "2";
-	private final static String DEFAULT_MAX_POOL = "5";
-	private final static String DEFAULT_IDLE_TIMEOUT = "60000";
-
-	private final static String DATASOURCE_PROPS_PREFIX = "datasource.property";
+	private final static String DEFAULT_STATEMENT_CACHE_SIZE = "32";
 
 
 	// CP Name from configuration file
@@ -45,8 +39,7 @@ public class OracleConnectionPool extends ConnectionPool {
 	public OracleConnectionPool(String poolName, String configFileName) throws Exception {
 		super("OracleCP");
 		// Load external properties
-		Properties hikariProps = new Properties();
-		hikariProps.load(new FileInputStream(configFileName));
+		Properties hikariProps = loadProperties(configFileName);
 
 		OracleDataSource oracleDs = new OracleDataSource();
 
@@ -55,31 +48,24 @@ public class OracleConnectionPool extends ConnectionPool {
 		oracleDs.setPassword(hikariProps.remove("datasource.password").toString());
 
 		// Tuning Direct Oracle Connection passing specific Datasource properties
-		Set<String> props = new HashSet<>();
-		for (Object key : hikariProps.keySet()) {
-			if (key.toString().toLowerCase().startsWith(DATASOURCE_PROPS_PREFIX)) {
-				props.add(key.toString());
-			}
-		}
-
-		// copying keys from original Properties
-		Properties pp = new Properties();
-		for (String key : props) {
-			pp.put(key.substring(DATASOURCE_PROPS_PREFIX.length() + 1), hikariProps.remove(key));
-		}
-
-		pp.put("defaultRowPrefetch", "10000");
+		// moderate defaultRowPrefetch of the ORACLE preset (user defined properties take precedence):
+		// DSL statements override it with their learned fetch size (FetchSizeAdvisor)
+		Properties pp = VendorPreset.ORACLE.getDataSourceProperties();
+		pp.putAll(extractDataSourceProperties(hikariProps));
 		if (pp.size() != 0) {
 			oracleDs.setConnectionProperties(pp);
 		}
 
+		// Statements cached per physical connection (not an Hikari property)
+		int maxStatements = Integer.parseInt(
+				removeProperty(hikariProps, "statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE)
+		);
+
 		// Load remaining properties to Hikari
 		poolConfig = new HikariConfig(hikariProps);
 		poolConfig.setDataSource(oracleDs);
 
-		poolConfig.setMinimumIdle(Integer.parseInt(hikariProps.getProperty("minimumIdle", DEFAULT_MIN_POOL)));
-		poolConfig.setMaximumPoolSize(Integer.parseInt(hikariProps.getProperty("maximumPoolSize", DEFAULT_MAX_POOL)));
-		poolConfig.setIdleTimeout(Long.parseLong(hikariProps.getProperty("idleTimeout", DEFAULT_IDLE_TIMEOUT)));
+		applyPoolDefaults(poolConfig, hikariProps);
 
 //			poolConfig.setConnectionInitSql(
 //					"begin execute immediate 'alter session set NLS_DATE_FORMAT=''YYYYMMDD-HH24MISS'''; " +
@@ -94,6 +80,7 @@ public class OracleConnectionPool extends ConnectionPool {
 
 		// Build of Connection Pool
 		this.poolDs = new HikariDataSource(poolConfig);
+		StatementCache.configure(poolDs, maxStatements);
 
 		super.check();
 	}
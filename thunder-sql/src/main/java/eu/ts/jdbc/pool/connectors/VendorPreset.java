@@ -0,0 +1,85 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.pool.connectors;
+
+import java.util.Properties;
+
+/**
+ * Per vendor driver tuning: fetch size, cursor mode and statement caching.
+ * <p>
+ * Driver side statement caches (PostgreSQL, MySQL) survive statement close, so the
+ * ThunderStruck statement cache is left off for them.
+ */
+public enum VendorPreset {
+
+	ORACLE("jdbc:oracle:", 32,
+			"defaultRowPrefetch", "500"),
+
+	// cursor based fetch needs autoCommit=false (pool default)
+	POSTGRESQL("jdbc:postgresql:", 0,
+			"defaultRowFetchSize", "1000",
+			"prepareThreshold", "1",
+			"preparedStatementCacheQueries", "256"),
+
+	MYSQL("jdbc:mysql:", 0,
+			"useCursorFetch", "true",
+			"defaultFetchSize", "1000",
+			"useServerPrepStmts", "true",
+			"cachePrepStmts", "true",
+			"prepStmtCacheSize", "256",
+			"prepStmtCacheSqlLimit", "2048",
+			"rewriteBatchedStatements", "true"),
+
+	// embedded engines: rows are already in process memory, per statement fetch size only
+	H2("jdbc:h2:", 32),
+
+	HSQLDB("jdbc:hsqldb:", 32),
+
+	GENERIC("jdbc:", 0);
+
+
+	private final String urlPrefix;
+	private final int statementCacheSize;
+	private final String[] dataSourceProperties;
+
+	VendorPreset(String urlPrefix, int statementCacheSize, String... dataSourceProperties) {
+		this.urlPrefix = urlPrefix;
+		this.statementCacheSize = statementCacheSize;
+		this.dataSourceProperties = dataSourceProperties;
+	}
+
+	public static VendorPreset fromUrl(String jdbcUrl) {
+		for (VendorPreset preset : values()) {
+			if (preset != GENERIC && jdbcUrl.startsWith(preset.urlPrefix)) {
+				return preset;
+			}
+		}
+		return GENERIC;
+	}
+
+	// driver properties of the preset (user defined ones take precedence)
+	public Properties getDataSourceProperties() {
+		Properties props = new Properties();
+		for (int i = 0; i < dataSourceProperties.length; i += 2) {
+			props.setProperty(dataSourceProperties[i], dataSourceProperties[i + 1]);
+		}
+		return props;
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+}
@@ -0,0 +1,98 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.pool.connectors.GenericConnectionPool;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+public class UnitOfWorkTest {
+
+	private final static String URL = "jdbc:h2:mem:unitofwork";
+
+	public static void main(String[] args) throws Exception {
+		DataSource dataSource = GenericConnectionPool.embeddedH2("unitofwork").getDataSource();
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("create table unit_row (id bigint primary key)");
+			connection.commit();
+		}
+		Batch insert = Query.batch(dataSource, "insert into unit_row (id) values (:id)");
+
+		// nested unit joins the outer one: only the outer commit makes rows visible
+		try (UnitOfWork outer = UnitOfWork.begin(dataSource)) {
+			insert.execute(Collections.singletonList(Collections.singletonMap("id", 1L)));
+			try (UnitOfWork inner = UnitOfWork.begin(dataSource)) {
+				check("nested unit shares the connection", inner.getConnection() == outer.getConnection());
+				insert.execute(Collections.singletonList(Collections.singletonMap("id", 2L)));
+				inner.commit();
+			}
+			check("inner commit left to the outer unit", count() == 0);
+			outer.commit();
+		}
+		check("outer commit", count() == 2);
+		check("binding removed on close", UnitOfWork.connection(dataSource) == null);
+
+		// inner rollback marks the outer unit rollback only, its commit fails and close rolls back
+		UnitOfWork outer = UnitOfWork.begin(dataSource);
+		try {
+			insert.execute(Collections.singletonList(Collections.singletonMap("id", 3L)));
+			try (UnitOfWork inner = UnitOfWork.begin(dataSource)) {
+				inner.rollback();
+			}
+			check("rollback only", outer.isRollbackOnly());
+			outer.commit();
+			check("commit of a rollback only unit fails", false);
+		} catch (RuntimeException ex) {
+			System.out.println("commit failed as expected: " + ex.getMessage());
+		} finally {
+			outer.close();
+		}
+		check("rollback only work discarded", count() == 2);
+		check("binding removed after failed commit", UnitOfWork.connection(dataSource) == null);
+
+		// broken connection: rollback fails on close, the binding and the connection are released anyway
+		UnitOfWork broken = UnitOfWork.begin(dataSource);
+		broken.getConnection().close();
+		try {
+			broken.close();
+			check("rollback on a closed connection fails", false);
+		} catch (RuntimeException ex) {
+			System.out.println("close failed as expected: " + ex.getMessage());
+		}
+		check("binding removed after failed rollback", UnitOfWork.connection(dataSource) == null);
+		check("later queries get a working connection",
+				Query.select(dataSource, "select count(*) from unit_row").fetch(rs -> rs.getLong(1)).get(0) == 2L);
+	}
+
+	private static long count() throws Exception {
+		try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+			 Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("select count(*) from unit_row")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private static void check(String description, boolean ok) {
+		System.out.println((ok ? "OK: " : "FAILED: ") + description);
+	}
+}
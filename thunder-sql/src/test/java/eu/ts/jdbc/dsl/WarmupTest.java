@@ -0,0 +1,120 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.dsl.mapping.QueryCache;
+import eu.ts.jdbc.pool.StatementCache;
+import eu.ts.jdbc.pool.connectors.GenericConnectionPool;
+
+import javax.sql.DataSource;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+public class WarmupTest {
+
+	public static class Item {
+		private long id;
+		private String label;
+
+		public String toString() {
+			return id + ":" + label;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		DataSource dataSource = GenericConnectionPool.embeddedH2("warmup").getDataSource();
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("create table warmup_item (id bigint primary key, label varchar(20))");
+			statement.execute("insert into warmup_item values (1, 'one'), (2, 'two')");
+			connection.commit();
+		}
+
+		// named SQL resource on the context class loader
+		Path dir = Files.createTempDirectory("warmup");
+		Files.write(dir.resolve("warmup.sql"), Arrays.asList(
+				"-- statements of the test",
+				"",
+				"-- name: item.byId",
+				"select id, label",
+				"  from warmup_item",
+				"-- trailing comment",
+				" where id = :id;",
+				"-- name: item.broken",
+				"select nope from missing_table"), StandardCharsets.UTF_8);
+		Files.write(dir.resolve("headless.sql"), Arrays.asList("select 1", "-- name: late", "select 2"),
+				StandardCharsets.UTF_8);
+
+		ClassLoader previous = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{dir.toUri().toURL()}, previous));
+		try {
+			WarmupReport report = Warmup.of(dataSource)
+					.statements("warmup.sql")
+					.statement("item.all", "select id, label from warmup_item order by id")
+					.mapper("item.byId", Item.class)
+					.mapper("item.unknown", Item.class)
+					.run();
+			System.out.println(report);
+			List<String> failures = report.getFailures();
+			check("broken statement and unknown mapper reported", failures.size() == 2
+					&& failures.get(0).startsWith("item.unknown") && failures.get(1).startsWith("item.broken"));
+
+			try {
+				Warmup.of(dataSource).statements("headless.sql");
+				check("SQL before the first name rejected", false);
+			} catch (RuntimeException ex) {
+				check("SQL before the first name rejected", ex.getMessage().contains("before the first"));
+			}
+			try {
+				Warmup.of(dataSource).statements("warmup.sql").statement("item.byId", "select 1");
+				check("duplicate name rejected", false);
+			} catch (RuntimeException ex) {
+				check("duplicate name rejected", ex.getMessage().contains("Duplicate"));
+			}
+		} finally {
+			Thread.currentThread().setContextClassLoader(previous);
+		}
+
+		// comment lines and the trailing ';' removed: the same text resolves to the named statement
+		String sql = "select id, label\n  from warmup_item\n where id = :id";
+		check("resource statement parsed", sql.equals(QueryCache.getNamedStatement("item.byId").getOriginalSql()));
+		check("SQL text resolves to the warmed name", QueryCache.registerSqlStatement(sql) == QueryCache.getNamedStatement("item.byId"));
+
+		// warmed statements are cached: running them prepares nothing
+		long misses = StatementCache.getMissCount();
+		System.out.println(Query.select(dataSource, sql, Query.parameter("id", 2L)).fetch(Item.class));
+		System.out.println(Query.select(dataSource, QueryCache.getNamedStatement("item.all")).fetch(Item.class));
+		check("no statement prepared after warmup", StatementCache.getMissCount() == misses);
+
+		try {
+			Query.select(dataSource, QueryCache.getNamedStatement("item.none"));
+			check("unknown named statement rejected", false);
+		} catch (RuntimeException ex) {
+			check("unknown named statement rejected", ex.getMessage().contains("null statement"));
+		}
+	}
+
+	private static void check(String description, boolean ok) {
+		System.out.println((ok ? "OK: " : "FAILED: ") + description);
+	}
+}
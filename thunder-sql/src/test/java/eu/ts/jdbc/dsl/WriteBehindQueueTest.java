@@ -0,0 +1,131 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl;
+
+import eu.ts.jdbc.pool.connectors.GenericConnectionPool;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+public class WriteBehindQueueTest {
+
+	private final static String URL = "jdbc:h2:mem:writebehind";
+
+	public static void main(String[] args) throws Exception {
+		DataSource dataSource = GenericConnectionPool.embeddedH2("writebehind").getDataSource();
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("create table behind_row (id bigint primary key)");
+			connection.commit();
+		}
+
+		// the drainer blocks on getConnection() until the gate opens, so the queue fills up
+		CountDownLatch gate = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		DataSource gated = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+				new Class<?>[]{DataSource.class}, (proxy, method, methodArgs) -> {
+					if (method.getName().equals("getConnection")) {
+						blocked.countDown();
+						gate.await();
+					}
+					try {
+						return method.invoke(dataSource, methodArgs);
+					} catch (InvocationTargetException ex) {
+						throw ex.getCause();
+					}
+				});
+
+		List<List<Object>> failures = new CopyOnWriteArrayList<>();
+		WriteBehindQueue queue = WriteBehindQueue.open(gated, "insert into behind_row (id) values (:id)")
+				.capacity(10)
+				.batchSize(5)
+				.flushInterval(Duration.ofMillis(20))
+				.onError((rows, ex) -> failures.add(rows))
+				.start();
+		WriteBehindMetrics metrics = queue.getMetrics();
+
+		// backpressure: one row held by the blocked drainer, ten queued, then offer fails and enqueue waits
+		queue.enqueue(row(1));
+		blocked.await();
+		for (long id = 2; id <= 11; id++) {
+			queue.enqueue(row(id));
+		}
+		check("queue full", metrics.getDepth() == 10);
+		check("blocked batch reported in flight", metrics.getInFlight() == 1);
+		check("offer on a full queue fails", !queue.offer(row(99), Duration.ZERO));
+		check("rejected row counted", metrics.getRejected() == 1);
+		Thread producer = new Thread(() -> queue.enqueue(row(12)));
+		producer.start();
+		producer.join(200);
+		check("enqueue blocks on a full queue", producer.isAlive());
+
+		gate.countDown();
+		producer.join();
+		queue.flush();
+		check("all accepted rows written after flush", count() == 12 && metrics.getWritten() == 12);
+		check("max depth within capacity (" + metrics.getMaxDepth() + ")", metrics.getMaxDepth() <= 10);
+		check("nothing in flight after flush", metrics.getInFlight() == 0);
+
+		// failed batch: rolled back, handed to the error handler and counted
+		queue.enqueue(row(1));
+		queue.flush();
+		check("failed batch handed to the error handler",
+				failures.size() == 1 && failures.get(0).equals(Collections.singletonList(row(1))));
+		check("failed rows counted", metrics.getFailed() == 1);
+		check("failed batch not written", count() == 12);
+
+		// close writes every accepted row and refuses new ones
+		for (long id = 100; id < 150; id++) {
+			queue.enqueue(row(id));
+		}
+		queue.close();
+		check("close writes the accepted rows", count() == 62 && metrics.getWritten() == 62);
+		try {
+			queue.enqueue(row(200));
+			check("enqueue after close fails", false);
+		} catch (RuntimeException ex) {
+			check("enqueue after close fails", ex.getMessage().equals("Write-behind queue closed"));
+		}
+		System.out.println(metrics);
+	}
+
+	private static Object row(long id) {
+		return Collections.singletonMap("id", id);
+	}
+
+	private static long count() throws Exception {
+		try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+			 Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("select count(*) from behind_row")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private static void check(String description, boolean ok) {
+		System.out.println((ok ? "OK: " : "FAILED: ") + description);
+	}
+}
@@ -0,0 +1,64 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentCacheTest {
+
+	public static void main(String[] args) throws Exception {
+		ConcurrentCache<Integer, String> cache = new ConcurrentCache<>(3);
+
+		cache.cache(1, "1");
+		cache.cache(2, "2");
+		cache.cache(3, "3");
+
+		System.out.println(cache.getMap().toString());
+
+		// frequently read entries survive eviction
+		for (int i = 0; i < 10; i++) {
+			cache.get(1);
+			cache.get(2);
+		}
+
+		cache.cache(4, "4");
+
+		System.out.println(cache.getMap().toString());
+		System.out.println(cache);
+
+		// shared cache under contention
+		final ConcurrentCache<Integer, String> shared = new ConcurrentCache<>(1000);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		for (int t = 0; t < 16; t++) {
+			executor.submit(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 1_000_000; i++) {
+					int key = random.nextInt(2000);
+					if (shared.get(key) == null) {
+						shared.cache(key, String.valueOf(key));
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		System.out.println(shared);
+	}
+}
@@ -0,0 +1,38 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import java.util.Arrays;
+
+public class QueryParserTest {
+
+	private static void print(String sql) {
+		QueryParser qp = new QueryParser(sql);
+		System.out.println(sql);
+		System.out.println("  -> " + qp.getRunnableSql());
+		System.out.println("     names=" + Arrays.toString(qp.getParameterNames())
+				+ " plan=" + Arrays.toString(qp.getBindingPlan()));
+	}
+
+	public static void main(String[] args) {
+		print("select * from users where id = :id and (owner = :id or group_id = :group_1)");
+		print("select to_char(created, 'HH24:MI') from users where name = 'it''s :not' and id = :id");
+		print("select q'[ :skip ]', nq'{:skip}', \"col:skip\" from dual where x = :x");
+		print("select amount::numeric from t -- where y = :skip\nwhere z = :z /* :skip */");
+		print("begin :result := 1; end;");
+		print("select 1 from dual");
+	}
+}
@@ -0,0 +1,52 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.mapping;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+
+public class RowCodecTest {
+
+	@Data
+	public static class Row {
+		private long id;
+		private String name;
+		private Integer age;
+		private BigDecimal amount;
+		private Timestamp created;
+		private boolean active;
+	}
+
+	public static void main(String[] args) {
+		RowCodec<Row> codec = RowCodec.of(Row.class);
+
+		Row row = new Row();
+		row.setId(42);
+		row.setName("caff\u00e8");
+		row.setAmount(new BigDecimal("-1234.5678"));
+		row.setCreated(new Timestamp(1_500_000_000_123L));
+		row.setActive(true);
+
+		ByteBuffer encoded = codec.encode(row);
+		System.out.println("encoded bytes=" + encoded.remaining());
+		Row decoded = codec.decode(encoded);
+		System.out.println(decoded);
+		System.out.println("equal=" + row.equals(decoded));
+	}
+}
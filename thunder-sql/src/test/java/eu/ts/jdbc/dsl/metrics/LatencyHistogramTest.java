@@ -0,0 +1,38 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.dsl.metrics;
+
+import java.util.Random;
+
+public class LatencyHistogramTest {
+
+	public static void main(String[] args) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Random random = new Random(7);
+		for (int i = 0; i < 100_000; i++) {
+			// log-normal like latencies around 1ms
+			histogram.record((long) (1_000_000 * Math.exp(random.nextGaussian() * 0.5)));
+		}
+		System.out.println(histogram);
+		System.out.println("p50=" + histogram.getPercentile(0.5) + " (expected ~1000000)");
+		System.out.println("p999=" + histogram.getPercentile(0.999) + " <= max=" + histogram.getMax());
+
+		for (long value : new long[]{0, 15, 16, 31, 32, 1000, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.index(value);
+			System.out.println(value + " -> bucket " + index + " upper=" + LatencyHistogram.upperBound(index));
+		}
+	}
+}
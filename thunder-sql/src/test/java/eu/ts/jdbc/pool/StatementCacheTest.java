@@ -0,0 +1,57 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.pool;
+
+import eu.ts.jdbc.dsl.Query;
+import eu.ts.jdbc.pool.connectors.GenericConnectionPool;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+public class StatementCacheTest {
+
+	public static void main(String[] args) throws Exception {
+		// single connection, autoCommit off: the next borrower gets the same physical connection
+		Properties config = new Properties();
+		config.setProperty("maximumPoolSize", "1");
+		config.setProperty("minimumIdle", "1");
+		DataSource dataSource = GenericConnectionPool.embeddedH2("statementcache", config).getDataSource();
+		System.out.println("statement cache enabled: " + StatementCache.isEnabled(dataSource));
+
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("create table locked_row (id bigint primary key, amount int)");
+			statement.execute("insert into locked_row values (1, 0)");
+			connection.commit();
+		}
+
+		// row lock taken through a cached statement, connection back to the pool without commit
+		Query.select(dataSource, "select id, amount from locked_row where id = 1 for update").fetch(rs -> rs.getLong(1));
+
+		try (Connection other = DriverManager.getConnection("jdbc:h2:mem:statementcache", "sa", "");
+			 Statement statement = other.createStatement()) {
+			statement.execute("set lock_timeout 200");
+			statement.executeUpdate("update locked_row set amount = 1 where id = 1");
+			System.out.println("OK: transaction rolled back when the connection returned to the pool");
+		} catch (SQLException ex) {
+			System.out.println("FAILED: lock survived the connection return: " + ex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,352 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.synthetic;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * Connection handing out SyntheticPreparedStatements; commit and rollback cost one round trip.
+ */
+public class SyntheticConnection implements Connection {
+
+	private final SyntheticTable table;
+
+	private boolean autoCommit = true;
+	private boolean readOnly = false;
+	private int isolation = TRANSACTION_READ_COMMITTED;
+	private int holdability = ResultSet.CLOSE_CURSORS_AT_COMMIT;
+	private String catalog;
+	private String schema;
+	private int networkTimeout = 0;
+	private final Properties clientInfo = new Properties();
+	private volatile boolean closed = false;
+
+	SyntheticConnection(SyntheticTable table) {
+		this.table = table;
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		checkOpen();
+		return new SyntheticPreparedStatement(this, table, sql);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		return prepareStatement(sql);
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		return prepareStatement(sql);
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		return prepareStatement(null);
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+		return createStatement();
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		return createStatement();
+	}
+
+	@Override
+	public String nativeSQL(String sql) {
+		return sql;
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		checkOpen();
+		this.autoCommit = autoCommit;
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		checkOpen();
+		return autoCommit;
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		checkOpen();
+		SyntheticTable.pause(table.getRoundTripNanos());
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		checkOpen();
+		SyntheticTable.pause(table.getRoundTripNanos());
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		checkOpen();
+		this.readOnly = readOnly;
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		checkOpen();
+		return readOnly;
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException {
+		checkOpen();
+		this.isolation = level;
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		checkOpen();
+		return isolation;
+	}
+
+	@Override
+	public void setHoldability(int holdability) {
+		this.holdability = holdability;
+	}
+
+	@Override
+	public int getHoldability() {
+		return holdability;
+	}
+
+	@Override
+	public void setCatalog(String catalog) {
+		this.catalog = catalog;
+	}
+
+	@Override
+	public String getCatalog() {
+		return catalog;
+	}
+
+	@Override
+	public void setSchema(String schema) {
+		this.schema = schema;
+	}
+
+	@Override
+	public String getSchema() {
+		return schema;
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) {
+		this.networkTimeout = milliseconds;
+	}
+
+	@Override
+	public int getNetworkTimeout() {
+		return networkTimeout;
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) {
+		clientInfo.setProperty(name, value);
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) {
+		clientInfo.clear();
+		clientInfo.putAll(properties);
+	}
+
+	@Override
+	public String getClientInfo(String name) {
+		return clientInfo.getProperty(name);
+	}
+
+	@Override
+	public Properties getClientInfo() {
+		Properties copy = new Properties();
+		copy.putAll(clientInfo);
+		return copy;
+	}
+
+	@Override
+	public boolean isValid(int timeout) {
+		return !closed;
+	}
+
+	@Override
+	public SQLWarning getWarnings() {
+		return null;
+	}
+
+	@Override
+	public void clearWarnings() {
+		// no warnings
+	}
+
+	@Override
+	public void abort(Executor executor) {
+		closed = true;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for: " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+	private void checkOpen() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection closed");
+		}
+	}
+
+
+	// not supported by the synthetic connection
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Clob createClob() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws
+SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+}
@@ -0,0 +1,100 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.synthetic;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * DataSource serving every query from a SyntheticTable, for load testing Query without a database.
+ * Bound parameters and the SQL text are ignored.
+ */
+public class SyntheticDataSource implements DataSource {
+
+	private final SyntheticTable table;
+	private final AtomicLong connections = new AtomicLong();
+	private int loginTimeout = 0;
+	private PrintWriter logWriter;
+
+	public SyntheticDataSource(SyntheticTable table) {
+		this.table = table;
+	}
+
+	public SyntheticTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @return number of connections opened so far
+	 */
+	public long getConnectionCount() {
+		return connections.get();
+	}
+
+	@Override
+	public Connection getConnection() {
+		connections.incrementAndGet();
+		return new SyntheticConnection(table);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) {
+		return getConnection();
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return logWriter;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		this.logWriter = out;
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		this.loginTimeout = seconds;
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return loginTimeout;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for: " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+}
@@ -0,0 +1,60 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.synthetic;
+
+import eu.ts.jdbc.dsl.Query;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+
+public class SyntheticDataSourceTest {
+
+	public static class Row {
+		private long id;
+		private String name;
+		private Integer age;
+		private double score;
+	}
+
+	public static void main(String[] args) {
+		SyntheticTable table = SyntheticTable.rows(200_000)
+				.column("id", Types.BIGINT)
+				.column("name", Types.VARCHAR, 32, 0)
+				.column("age", Types.INTEGER, 0, 0.1)
+				.column("score", Types.DOUBLE);
+		SyntheticDataSource dataSource = new SyntheticDataSource(table);
+
+		// mapping throughput only: no latency injected
+		for (int run = 0; run < 5; run++) {
+			long start = System.nanoTime();
+			List<Row> rows = Query.select(dataSource, "select id, name, age, score from synthetic").fetch(Row.class);
+			long elapsed = System.nanoTime() - start;
+			System.out.println(rows.size() + " rows in " + elapsed / 1_000_000 + "ms, " + (rows.size() * 1_000_000_000L / elapsed) + " rows/s");
+		}
+
+		// 200us per round trip: small fetch sizes pay it on every few rows
+		SyntheticDataSource remote = new SyntheticDataSource(SyntheticTable.rows(10_000)
+				.column("id", Types.BIGINT)
+				.column("name", Types.VARCHAR, 32, 0)
+				.roundTripLatency(Duration.ofNanos(200_000)));
+		for (int fetchSize : new int[]{10, 100, 1000}) {
+			long start = System.nanoTime();
+			int rows = Query.select(remote, "select id, name from synthetic").fetchSize(fetchSize).fetch(rs -> rs.getLong(1)).size();
+			System.out.println("fetchSize=" + fetchSize + ": " + rows + " rows in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+		}
+	}
+}
@@ -0,0 +1,561 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.synthetic;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * Statement returning a fresh cursor over the SyntheticTable on every execution, after one round trip.
+ * Parameters are accepted and ignored.
+ */
+public class SyntheticPreparedStatement implements PreparedStatement {
+
+	private final SyntheticConnection connection;
+	private final SyntheticTable table;
+	private final String sql;
+
+	private int fetchSize = 0;
+	private int maxRows = 0;
+	private int queryTimeout = 0;
+	private int batched = 0;
+	private boolean poolable = true;
+	private boolean closeOnCompletion = false;
+	private volatile boolean cancelled = false;
+	private boolean closed = false;
+	private SyntheticResultSet resultSet;
+
+	SyntheticPreparedStatement(SyntheticConnection connection, SyntheticTable table, String sql) {
+		this.connection = connection;
+		this.table = table;
+		this.sql = sql;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		checkOpen();
+		cancelled = false;
+		SyntheticTable.pause(table.getRoundTripNanos());
+		resultSet = new SyntheticResultSet(table, this, fetchSize);
+		return resultSet;
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		return executeQuery();
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		executeQuery();
+		return true;
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		return execute();
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		checkOpen();
+		SyntheticTable.pause(table.getRoundTripNanos());
+		return 1;
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		return executeUpdate();
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		checkOpen();
+		batched++;
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		checkOpen();
+		SyntheticTable.pause(table.getRoundTripNanos());
+		int[] counts = new int[batched];
+		Arrays.fill(counts, 1);
+		batched = 0;
+		return counts;
+	}
+
+	@Override
+	public void clearBatch() {
+		batched = 0;
+	}
+
+	@Override
+	public void clearParameters() {
+		// parameters are not kept
+	}
+
+	@Override
+	public ResultSet getResultSet() {
+		return resultSet;
+	}
+
+	@Override
+	public int getUpdateCount() {
+		return -1;
+	}
+
+	@Override
+	public boolean getMoreResults() {
+		resultSet = null;
+		return false;
+	}
+
+	@Override
+	public boolean getMoreResults(int current) {
+		return getMoreResults();
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() {
+		return new SyntheticResultSetMetaData(table);
+	}
+
+	@Override
+	public Connection getConnection() {
+		return connection;
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		if (rows < 0) {
+			throw new SQLException("Invalid fetch size: " + rows);
+		}
+		this.fetchSize = rows;
+	}
+
+	@Override
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	@Override
+	public void setFetchDirection(int direction) {
+		// forward only
+	}
+
+	@Override
+	public int getFetchDirection() {
+		return ResultSet.FETCH_FORWARD;
+	}
+
+	@Override
+	public void setMaxRows(int max) {
+		this.maxRows = max;
+	}
+
+	@Override
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) {
+		this.queryTimeout = seconds;
+	}
+
+	@Override
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	@Override
+	public int getResultSetType() {
+		return ResultSet.TYPE_FORWARD_ONLY;
+	}
+
+	@Override
+	public int getResultSetConcurrency() {
+		return ResultSet.CONCUR_READ_ONLY;
+	}
+
+	@Override
+	public int getResultSetHoldability() {
+		return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) {
+		// no escapes in synthetic SQL
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) {
+		this.poolable = poolable;
+	}
+
+	@Override
+	public boolean isPoolable() {
+		return poolable;
+	}
+
+	@Override
+	public void closeOnCompletion() {
+		this.closeOnCompletion = true;
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() {
+		return closeOnCompletion;
+	}
+
+	@Override
+	public SQLWarning getWarnings() {
+		return null;
+	}
+
+	@Override
+	public void clearWarnings() {
+		// no warnings
+	}
+
+	@Override
+	public void cancel() {
+		cancelled = true;
+	}
+
+	void checkCancelled() throws SQLException {
+		if (cancelled) {
+			throw new SQLException("Statement cancelled");
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		if (resultSet != null) {
+			resultSet.close();
+			resultSet = null;
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for: " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+	private void checkOpen() throws SQLException {
+		if (closed) {
+			throw new SQLException("Statement closed");
+		}
+		if (connection.isClosed()) {
+			throw new SQLException("Connection closed");
+		}
+	}
+
+
+	// bound parameters do not change the synthetic rows
+	@Override
+	public void setNull(int parameterIndex, int sqlType) {
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) {
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) {
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) {
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) {
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) {
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) {
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) {
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) {
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) {
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) {
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x) {
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x) {
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x) {
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) {
+	}
+
+	@Override
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) {
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) {
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) {
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) {
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) {
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) {
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) {
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) {
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) {
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x, Calendar cal) {
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x, Calendar cal) {
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) {
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) {
+	}
+
+	@Override
+	public void setURL(int parameterIndex, URL x) {
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) {
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) {
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) {
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob value) {
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader, long length) {
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) {
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader, long length) {
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) {
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) {
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) {
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) {
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, long length) {
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x) {
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x) {
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader) {
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value) {
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader) {
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream) {
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader) {
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) {
+	}
+
+	// not supported by the synthetic statement
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		throw new SQLFeatureNotSupportedException();
+	}
+}
@@ -0,0 +1,218 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.synthetic;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.JDBCType;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Column descriptions of a SyntheticTable.
+ */
+public class SyntheticResultSetMetaData implements ResultSetMetaData {
+
+	private final SyntheticTable table;
+
+	SyntheticResultSetMetaData(SyntheticTable table) {
+		this.table = table;
+	}
+
+	private SyntheticTable.Column column(int column) throws SQLException {
+		if (column < 1 || column > table.getColumns().size()) {
+			throw new SQLException("Invalid column index: " + column);
+		}
+		return table.column(column - 1);
+	}
+
+	@Override
+	public int getColumnCount() {
+		return table.getColumns().size();
+	}
+
+	@Override
+	public String getColumnName(int column) throws SQLException {
+		return column(column).getName();
+	}
+
+	@Override
+	public String getColumnLabel(int column) throws SQLException {
+		return column(column).getName();
+	}
+
+	@Override
+	public int getColumnType(int column) throws SQLException {
+		return column(column).getSqlType();
+	}
+
+	@Override
+	public String getColumnTypeName(int column) throws SQLException {
+		return JDBCType.valueOf(column(column).getSqlType()).getName();
+	}
+
+	@Override
+	public String getColumnClassName(int column) throws SQLException {
+		switch (column(column).getSqlType()) {
+			case Types.BIGINT:
+				return Long.class.getName();
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return Integer.class.getName();
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return Double.class.getName();
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return BigDecimal.class.getName();
+			case Types.BOOLEAN:
+			case Types.BIT:
+				return Boolean.class.getName();
+			case Types.DATE:
+				return Date.class.getName();
+			case Types.TIMESTAMP:
+				return Timestamp.class.getName();
+			default:
+				return String.class.getName();
+		}
+	}
+
+	@Override
+	public int getPrecision(int column) throws SQLException {
+		switch (column(column).getSqlType()) {
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return 18;
+			case Types.BIGINT:
+				return 19;
+			case Types.INTEGER:
+				return 10;
+			default:
+				return column(column).getWidth();
+		}
+	}
+
+	@Override
+	public int getScale(int column) throws SQLException {
+		int type = column(column).getSqlType();
+		return (type == Types.DECIMAL || type == Types.NUMERIC) ? 2 : 0;
+	}
+
+	@Override
+	public int getColumnDisplaySize(int column) throws SQLException {
+		return Math.max(getPrecision(column), 1);
+	}
+
+	@Override
+	public int isNullable(int column) throws SQLException {
+		return (column(column).getNullRatio() > 0) ? columnNullable : columnNoNulls;
+	}
+
+	@Override
+	public boolean isSigned(int column) throws SQLException {
+		switch (column(column).getSqlType()) {
+			case Types.BIGINT:
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	@Override
+	public boolean isAutoIncrement(int column) throws SQLException {
+		column(column);
+		return false;
+	}
+
+	@Override
+	public boolean isCaseSensitive(int column) throws SQLException {
+		column(column);
+		return true;
+	}
+
+	@Override
+	public boolean isSearchable(int column) throws SQLException {
+		column(column);
+		return true;
+	}
+
+	@Override
+	public boolean isCurrency(int column) throws SQLException {
+		column(column);
+		return false;
+	}
+
+	@Override
+	public boolean isReadOnly(int column) throws SQLException {
+		column(column);
+		return true;
+	}
+
+	@Override
+	public boolean isWritable(int column) throws SQLException {
+		column(column);
+		return false;
+	}
+
+	@Override
+	public boolean isDefinitelyWritable(int column) throws SQLException {
+		column(column);
+		return false;
+	}
+
+	@Override
+	public String getSchemaName(int column) throws SQLException {
+		column(column);
+		return "";
+	}
+
+	@Override
+	public String getTableName(int column) throws SQLException {
+		column(column);
+		return "synthetic";
+	}
+
+	@Override
+	public String getCatalogName(int column) throws SQLException {
+		column(column);
+		return "";
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for: " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+}
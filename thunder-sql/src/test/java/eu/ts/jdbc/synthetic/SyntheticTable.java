@@ -0,0 +1,276 @@
+/*==============================================================================
+ Copyright (C) 2015. Antonio Conte
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ =============================================================================*/
+package eu.ts.jdbc.synthetic;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shape of a synthetic result: row count, typed columns with width and null ratio, latencies.
+ * <p>
+ * Values are computed from (row, column) on read: nothing is stored, strings come from a small per
+ * column pool of the configured width. The same table always produces the same values.
+ */
+public final class SyntheticTable {
+
+	private final static long BASE_MILLIS = 1_500_000_000_000L;
+	private final static int STRING_POOL = 256;
+
+	public final static class Column {
+		private final String name;
+		private final int sqlType;
+		private final int width;
+		private final double nullRatio;
+		private final String[] strings;
+
+		private Column(String name, int sqlType, int width, double nullRatio) {
+			this.name = name;
+			this.sqlType = sqlType;
+			this.width = width;
+			this.nullRatio = nullRatio;
+			this.strings = new String[STRING_POOL];
+			for (int k = 0; k < STRING_POOL; k++) {
+				StringBuilder sb = new StringBuilder(width).append(name).append('-').append(k);
+				while (sb.length() < width) {
+					sb.append((char) ('a' + (k + sb.length()) % 26));
+				}
+				strings[k] = sb.substring(0, Math.max(1, width));
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getSqlType() {
+			return sqlType;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public double getNullRatio() {
+			return nullRatio;
+		}
+	}
+
+	private final long rows;
+	private final List<Column> columns = new ArrayList<>();
+	private long rowLatencyNanos = 0;
+	private long roundTripNanos = 0;
+	private int defaultFetchSize = 10;
+	private long seed = 42;
+
+	private SyntheticTable(long rows) {
+		this.rows = rows;
+	}
+
+	public static SyntheticTable rows(final long rows) {
+		return new SyntheticTable(rows);
+	}
+
+	// java.sql.Types: BIGINT, INTEGER, SMALLINT, DOUBLE, DECIMAL, VARCHAR, CHAR, BOOLEAN, DATE, TIMESTAMP
+	public SyntheticTable column(final String name, final int sqlType) {
+		return column(name, sqlType, 16, 0);
+	}
+
+	public SyntheticTable column(final String name, final int sqlType, final int width, final double nullRatio) {
+		if (nullRatio < 0 || nullRatio > 1) {
+			throw new RuntimeException("Invalid null ratio: " + nullRatio);
+		}
+		columns.add(new Column(name, sqlType, width, nullRatio));
+		return this;
+	}
+
+	// cost of reading each row
+	public SyntheticTable rowLatency(final Duration latency) {
+		this.rowLatencyNanos = latency.toNanos();
+		return this;
+	}
+
+	// cost of executeQuery and of each fetch of fetchSize rows
+	public SyntheticTable roundTripLatency(final Duration latency) {
+		this.roundTripNanos = latency.toNanos();
+		return this;
+	}
+
+	// rows per round trip when the statement fetch size is 0
+	public SyntheticTable defaultFetchSize(final int rows) {
+		this.defaultFetchSize = Math.max(1, rows);
+		return this;
+	}
+
+	public SyntheticTable seed(final long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+
+	public long getRows() {
+		return rows;
+	}
+
+	public List<Column> getColumns() {
+		return Collections.unmodifiableList(columns);
+	}
+
+	public int getDefaultFetchSize() {
+		return defaultFetchSize;
+	}
+
+	long getRowLatencyNanos() {
+		return rowLatencyNanos;
+	}
+
+	long getRoundTripNanos() {
+		return roundTripNanos;
+	}
+
+	Column column(int index) {
+		return columns.get(index);
+	}
+
+
+	// values of (row, column), column 0 based
+
+	boolean isNull(long row, int col) {
+		double ratio = columns.get(col).nullRatio;
+		return ratio > 0 && (mix(row * 31 + col) >>> 11) * 0x1.0p-53 < ratio;
+	}
+
+	long longValue(long row, int col) {
+		switch (columns.get(col).sqlType) {
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return (long) doubleValue(row, col);
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return (row % 10_000) + col;
+			case Types.BOOLEAN:
+			case Types.BIT:
+				return (row + col) & 1;
+			default:
+				return row * (col + 1);
+		}
+	}
+
+	double doubleValue(long row, int col) {
+		int type = columns.get(col).sqlType;
+		if (type == Types.DOUBLE || type == Types.FLOAT || type == Types.REAL) {
+			return row * 0.5 + col;
+		}
+		if (type == Types.DECIMAL || type == Types.NUMERIC) {
+			return decimalValue(row, col).doubleValue();
+		}
+		return longValue(row, col);
+	}
+
+	BigDecimal decimalValue(long row, int col) {
+		int type = columns.get(col).sqlType;
+		if (type == Types.DECIMAL || type == Types.NUMERIC) {
+			return BigDecimal.valueOf(row * 100 + col, 2);
+		}
+		if (type == Types.DOUBLE || type == Types.FLOAT || type == Types.REAL) {
+			return BigDecimal.valueOf(doubleValue(row, col));
+		}
+		return BigDecimal.valueOf(longValue(row, col));
+	}
+
+	String stringValue(long row, int col) {
+		Column column = columns.get(col);
+		switch (column.sqlType) {
+			case Types.VARCHAR:
+			case Types.CHAR:
+			case Types.NVARCHAR:
+			case Types.LONGVARCHAR:
+				return pooledString(row, col);
+			default:
+				return String.valueOf(objectValue(row, col));
+		}
+	}
+
+	Timestamp timestampValue(long row, int col) {
+		return new Timestamp(BASE_MILLIS + row * 1000 + col);
+	}
+
+	Date dateValue(long row, int col) {
+		return new Date(BASE_MILLIS + row * 86_400_000L);
+	}
+
+	// natural Java type of the column (getObject)
+	Object objectValue(long row, int col) {
+		switch (columns.get(col).sqlType) {
+			case Types.BIGINT:
+				return longValue(row, col);
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return (int) longValue(row, col);
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return doubleValue(row, col);
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return decimalValue(row, col);
+			case Types.BOOLEAN:
+			case Types.BIT:
+				return longValue(row, col) == 1;
+			case Types.DATE:
+				return dateValue(row, col);
+			case Types.TIMESTAMP:
+				return timestampValue(row, col);
+			default:
+				return pooledString(row, col);
+		}
+	}
+
+	private String pooledString(long row, int col) {
+		return columns.get(col).strings[(int) Math.floorMod(row + seed, (long) STRING_POOL)];
+	}
+
+	// simulated latency: spin below a millisecond (park is too coarse), park above
+	static void pause(long nanos) {
+		if (nanos <= 0) {
+			return;
+		}
+		if (nanos >= 1_000_000) {
+			LockSupport.parkNanos(nanos);
+			return;
+		}
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end) {
+			// busy wait
+		}
+	}
+
+	private long mix(long value) {
+		long z = value + seed * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}